@@ -0,0 +1,42 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link ICharHistogramKernel} based on the incubating Vector API: one 256 bit
+ * vector holds the 32 bucket counts of a name, so the bucket-wise minimum with
+ * the search string is a single lane-wise min. The minima are widened to shorts
+ * before summing them up, the sum of 32 byte counts does not fit into a byte.
+ *
+ * Only compiled with the vector-api build profile (JDK 17+) and only loaded
+ * (see {@link CharHistograms#createKernel(boolean)}) if the JVM runs with
+ * --add-modules jdk.incubator.vector.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+public final class VectorCharHistogramKernel implements ICharHistogramKernel {
+
+	private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_256;
+	private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_256;
+
+	public VectorCharHistogramKernel() {
+		if (BYTES.length() != CharHistograms.BUCKETS) {
+			throw new IllegalStateException("Vector species does not fit the histogram buckets.");
+		}
+	}
+
+	@Override
+	public void countCommon(byte[] query, byte[] packed, int fromName, int toName, int[] common) {
+		ByteVector queryCounts = ByteVector.fromArray(BYTES, query, 0);
+		for (int name = fromName; name < toName; name++) {
+			ByteVector minima = ByteVector.fromArray(BYTES, packed, name * CharHistograms.BUCKETS).min(queryCounts);
+			ShortVector low = (ShortVector) minima.convertShape(VectorOperators.B2S, SHORTS, 0);
+			ShortVector high = (ShortVector) minima.convertShape(VectorOperators.B2S, SHORTS, 1);
+			common[name - fromName] = low.add(high).reduceLanes(VectorOperators.ADD);
+		}
+	}
+}
@@ -13,6 +13,7 @@ import edu.kit.ipd.pronat.vamos.programm_representation.CommandCandidate;
 import edu.kit.ipd.pronat.vamos.programm_representation.FunctionCallCandidate;
 import edu.kit.ipd.pronat.vamos.programm_representation.FunctionParameterCandidate;
 import edu.kit.ipd.pronat.vamos.programm_representation.MethodSignatureCandidate;
+import edu.kit.ipd.pronat.vamos.utils.GraphTypeRegistry;
 import edu.kit.ipd.pronat.vamos.utils.GraphUtils;
 import org.kohsuke.MetaInfServices;
 import org.slf4j.Logger;
@@ -98,9 +99,11 @@ public class MethodSynthesizer extends AbstractAgent {
 		//TODO: what to do, if ran before? By now, just exit...
 		if (checkMandatory() && !checkRunBefore()) {
 
+			// resolve node and arc types once for this exec
+			GraphTypeRegistry graphTypes = new GraphTypeRegistry(graph);
+
 			// check if graph contains context-Labels for synonyms and corefs
-			if (graph.getArcsOfType(graph.getArcType("reference")).isEmpty()
-					|| graph.getArcsOfType(graph.getArcType("contextRelation")).isEmpty()) {
+			if (!graphTypes.hasContextAnnotations()) {
 				useContext = false;
 				logger.error("No Context-Annotations found. No usage of synonyms and coref resolution for string matching.");
 			}
@@ -134,10 +137,10 @@ public class MethodSynthesizer extends AbstractAgent {
 			}
 
 			// merge classification results with semantic role labels: methodname, params
-			SrlExtractor srl = new SrlExtractor();
+			SrlExtractor srl = new SrlExtractor(graphTypes);
 			AbstractCommand command = mergeClfResults(srl, isTeachingSequence, mclassLabels);
 
-			OntologyMapper mapper = new OntologyMapper(useContext);
+			OntologyMapper mapper = new OntologyMapper(useContext, graphTypes);
 			CommandCandidate commandMappingToAPI = mapper.findCommandMappingToAPI(command);
 			logger.debug("Mapped command: \n{}", commandMappingToAPI.toString());
 
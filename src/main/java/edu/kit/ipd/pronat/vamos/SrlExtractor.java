@@ -3,6 +3,7 @@ package edu.kit.ipd.pronat.vamos;
 import edu.kit.ipd.parse.luna.graph.IArc;
 import edu.kit.ipd.parse.luna.graph.IArcType;
 import edu.kit.ipd.parse.luna.graph.INode;
+import edu.kit.ipd.pronat.vamos.utils.GraphTypeRegistry;
 import edu.kit.ipd.pronat.vamos.utils.GraphUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,11 +18,15 @@ import java.util.stream.Collectors;
 public class SrlExtractor {
 	private static final Logger logger = LoggerFactory.getLogger(SrlExtractor.class);
 
-	private static IArcType srlType = GraphUtils.getSrlArcType();
+	private final IArcType srlType;
 
 	private static final String VRole = "V";
 	private static final String ModalSrlRole = "AM-MOD";
 
+	public SrlExtractor(GraphTypeRegistry graphTypes) {
+		srlType = graphTypes.getSrlArcType();
+	}
+
 	/**
 	 * Get V-SRL-nodes of each chunk. Could consist of main V-SRL and modifier V-SRL
 	 * nodes ("need to go", "turn to face").
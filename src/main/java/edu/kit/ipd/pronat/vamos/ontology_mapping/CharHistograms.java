@@ -0,0 +1,114 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Character histograms for bounding string similarities before computing them.
+ * Every char falls into one of 32 buckets (case folded letters, space, digits,
+ * other ASCII chars, other chars), so the histogram of a name is 32 byte counts
+ * and the histograms of all ontology names are packed into one byte array. The
+ * sum of the bucket-wise minimum of two histograms is an upper bound of the
+ * number of chars two strings can match, both for Jaro Winkler and Fuzzy Score.
+ *
+ * The common counts of one search string with all packed names are computed by
+ * an {@link ICharHistogramKernel}: a plain Java one or, if enabled and the
+ * jdk.incubator.vector module is available (JDK 17+, vector-api build profile,
+ * --add-modules jdk.incubator.vector), one based on the Vector API.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+public final class CharHistograms {
+
+	private static final Logger logger = LoggerFactory.getLogger(CharHistograms.class);
+	private static final String VECTOR_KERNEL_CLASS = "edu.kit.ipd.pronat.vamos.ontology_mapping.VectorCharHistogramKernel";
+
+	public static final int BUCKETS = 32;
+	// longer strings could overflow the byte counts and are not bounded
+	public static final int MAX_LENGTH = Byte.MAX_VALUE;
+
+	private static final int SPACE = 26;
+	private static final int DIGIT = 27;
+	private static final int OTHER_ASCII = 28;
+	private static final int OTHER = 29;
+
+	private CharHistograms() {
+	}
+
+	/**
+	 * Create the kernel to count common chars.
+	 *
+	 * @param useVectorApi
+	 *            try to use the Vector API kernel
+	 * @return Vector API kernel if requested and available, the scalar kernel
+	 *         otherwise
+	 */
+	public static ICharHistogramKernel createKernel(boolean useVectorApi) {
+		if (useVectorApi) {
+			try {
+				ICharHistogramKernel kernel = (ICharHistogramKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+				logger.info("Using the Vector API kernel for string similarity bounds.");
+				return kernel;
+			} catch (ReflectiveOperationException | LinkageError e) {
+				logger.warn("Vector API kernel not available ({}), falling back to the scalar kernel.", e.toString());
+			}
+		}
+		return new ScalarCharHistogramKernel();
+	}
+
+	private static int bucket(char c) {
+		if (c >= 'a' && c <= 'z') {
+			return c - 'a';
+		} else if (c >= 'A' && c <= 'Z') {
+			return c - 'A';
+		} else if (c == ' ') {
+			return SPACE;
+		} else if (c >= '0' && c <= '9') {
+			return DIGIT;
+		}
+		return c < 128 ? OTHER_ASCII : OTHER;
+	}
+
+	/**
+	 * Add the bucket-wise maximum of the histogram of the given chars and the
+	 * histogram at the offset to it.
+	 *
+	 * @param histograms
+	 *            packed histograms
+	 * @param offset
+	 *            offset of the histogram
+	 * @param chars
+	 *            chars (at most {@link #MAX_LENGTH})
+	 */
+	static void maxInto(byte[] histograms, int offset, char[]... chars) {
+		byte[] counts = new byte[BUCKETS];
+		for (char[] part : chars) {
+			for (char c : part) {
+				counts[bucket(c)]++;
+			}
+		}
+		for (int b = 0; b < BUCKETS; b++) {
+			histograms[offset + b] = (byte) Math.max(histograms[offset + b], counts[b]);
+		}
+	}
+
+	/**
+	 * Histogram of a search string, covering both its raw and lowercased chars.
+	 *
+	 * @param query
+	 *            search string
+	 * @param lowerCaseQuery
+	 *            lowercased search string
+	 * @return histogram, or null if the search string is too long
+	 */
+	static byte[] queryHistogram(char[] query, char[] lowerCaseQuery) {
+		if (query.length > MAX_LENGTH || lowerCaseQuery.length > MAX_LENGTH) {
+			return null;
+		}
+		byte[] histogram = new byte[BUCKETS];
+		maxInto(histogram, 0, query);
+		maxInto(histogram, 0, lowerCaseQuery);
+		return histogram;
+	}
+}
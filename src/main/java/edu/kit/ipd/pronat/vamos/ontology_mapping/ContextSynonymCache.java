@@ -0,0 +1,54 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import edu.kit.ipd.parse.luna.graph.INode;
+import edu.kit.ipd.pronat.vamos.utils.GraphUtils;
+
+import java.util.*;
+
+/**
+ * Per exec cache of the wordnet synonyms attached to contextAction and
+ * contextEntity nodes by the
+ * {@link edu.kit.ipd.pronat.context.ContextAnalyzer}. The "synonyms" attribute
+ * of every context node is parsed only once; the result is lowercased, free of
+ * duplicates and capped to a maximum number of synonyms per node.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+public class ContextSynonymCache {
+
+	private static final String SYNONYMS_ATTRIBUTE_NAME = "synonyms";
+
+	private final Map<INode, Set<String>> synonymsPerNode = new HashMap<>();
+	private final int maxSynonymsPerNode;
+
+	public ContextSynonymCache(int maxSynonymsPerNode) {
+		this.maxSynonymsPerNode = maxSynonymsPerNode;
+	}
+
+	/**
+	 * Get the parsed synonyms of the given context node.
+	 *
+	 * @param contextNode
+	 *            contextAction or contextEntity node
+	 * @return lowercased and deduplicated synonyms (in their original order)
+	 */
+	public Set<String> getSynonyms(INode contextNode) {
+		return synonymsPerNode.computeIfAbsent(contextNode, this::parseSynonyms);
+	}
+
+	private Set<String> parseSynonyms(INode contextNode) {
+		Set<String> synonyms = new LinkedHashSet<>();
+		for (String synonym : GraphUtils.getListFromArrayToString((String) contextNode.getAttributeValue(SYNONYMS_ATTRIBUTE_NAME))) {
+			if (synonyms.size() >= maxSynonymsPerNode) {
+				break;
+			}
+
+			String normalized = synonym.trim().toLowerCase(Locale.ENGLISH);
+			if (!normalized.isEmpty()) {
+				synonyms.add(normalized);
+			}
+		}
+		return Collections.unmodifiableSet(synonyms);
+	}
+}
@@ -0,0 +1,57 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Datatype compatibility of the indexed parameter individuals and the datatypes
+ * of the ontology parameters (see FunctionCallScorer#checkDataType). Each pair
+ * is checked once, as the verdict only depends on the individual and the
+ * datatype. Only pairs of indexed individuals and datatypes of indexed methods
+ * are kept, so the cache holds at most one verdict per individual and datatype
+ * of the ontology and lives as long as its {@link OntologyIndex}.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+final class DataTypeCompatibilities {
+
+	private final int numIds;
+	private final int numDataTypes;
+	// verdicts of (individual ID, datatype ID) pairs
+	private final Map<Long, DataTypeCompatibility> compatibilities = new ConcurrentHashMap<>();
+
+	/**
+	 * Create an empty cache for the given numbers of individuals and datatypes.
+	 *
+	 * @param numIds
+	 *            number of indexed individuals
+	 * @param numDataTypes
+	 *            number of datatypes of the indexed methods
+	 */
+	DataTypeCompatibilities(int numIds, int numDataTypes) {
+		this.numIds = numIds;
+		this.numDataTypes = numDataTypes;
+	}
+
+	/**
+	 * Get the datatype compatibility of an indexed parameter individual and the
+	 * datatype of an ontology parameter. Pairs outside of the indexed IDs are
+	 * checked without being cached.
+	 *
+	 * @param id
+	 *            ID of the parameter individual
+	 * @param dataTypeId
+	 *            ID of the datatype (see {@link MethodDescriptor#getDataTypeId(int)})
+	 * @param check
+	 *            check of the compatibility
+	 * @return compatibility verdict
+	 */
+	DataTypeCompatibility get(int id, int dataTypeId, Supplier<DataTypeCompatibility> check) {
+		if (id < 0 || id >= numIds || dataTypeId < 0 || dataTypeId >= numDataTypes) {
+			return check.get();
+		}
+		return compatibilities.computeIfAbsent(((long) id << 32) | dataTypeId, key -> check.get());
+	}
+}
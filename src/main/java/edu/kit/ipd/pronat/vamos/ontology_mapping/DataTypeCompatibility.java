@@ -0,0 +1,46 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import edu.kit.ipd.parse.ontology_connection.object.IObject;
+
+/**
+ * Verdict whether an ontology individual can be passed to an ontology
+ * parameter, together with the sub-object to pass instead of the individual, if
+ * only one of its sub-objects has the datatype of the parameter.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+final class DataTypeCompatibility {
+
+	static final DataTypeCompatibility COMPATIBLE = new DataTypeCompatibility(true, null);
+	static final DataTypeCompatibility INCOMPATIBLE = new DataTypeCompatibility(false, null);
+
+	private final boolean compatible;
+	private final IObject substitute;
+
+	private DataTypeCompatibility(boolean compatible, IObject substitute) {
+		this.compatible = compatible;
+		this.substitute = substitute;
+	}
+
+	static DataTypeCompatibility of(boolean compatible) {
+		return compatible ? COMPATIBLE : INCOMPATIBLE;
+	}
+
+	static DataTypeCompatibility substitutedBy(IObject subObject) {
+		return new DataTypeCompatibility(true, subObject);
+	}
+
+	boolean isCompatible() {
+		return compatible;
+	}
+
+	/**
+	 * Get the sub-object to pass instead of the individual.
+	 *
+	 * @return sub-object, or null if the individual itself is passed
+	 */
+	IObject getSubstitute() {
+		return substitute;
+	}
+}
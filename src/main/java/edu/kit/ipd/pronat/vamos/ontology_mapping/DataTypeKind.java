@@ -0,0 +1,71 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import edu.kit.ipd.parse.ontology_connection.datatype.IDataType;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Kind of the datatype of an ontology parameter, deciding which extracted
+ * parameters can be passed to it (see FunctionCallScorer#checkDataType).
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+enum DataTypeKind {
+
+	/** number without ontology representation, e.g. int */
+	NUMERIC,
+	/** other type without ontology representation, e.g. String */
+	PRIMITIVE,
+	/** any object */
+	OBJECT,
+	/** objects of a typed object type, e.g. Openable */
+	TYPED,
+	/** one of the values of the datatype, e.g. a color */
+	VALUE,
+	/** the state of the same name */
+	STATE;
+
+	private static final String OBJECT_TYPE = "Object";
+	// some of the primitive datatypes have no ontology representation -> the values could NOT be found through string matched
+	private static final Set<String> TYPES_WITHOUT_ONTOLOGY_REPR = new HashSet<>(
+			Arrays.asList("String", "int", "double", "float", "short", "char", "boolean", "long"));
+	private static final Set<String> NUMERIC_TYPES = new HashSet<>(Arrays.asList("int", "double", "float", "short", "long"));
+
+	/**
+	 * Get the kind of a datatype.
+	 *
+	 * @param dataType
+	 *            datatype of an ontology parameter
+	 * @param typedObjectTypes
+	 *            types of the typed objects of the ontology
+	 * @return kind of the datatype
+	 */
+	static DataTypeKind of(IDataType dataType, Set<String> typedObjectTypes) {
+		String name = dataType.getName();
+		if (NUMERIC_TYPES.contains(name)) {
+			return NUMERIC;
+		} else if (TYPES_WITHOUT_ONTOLOGY_REPR.contains(name)) {
+			return PRIMITIVE;
+		} else if (name.equals(OBJECT_TYPE)) {
+			return OBJECT;
+		} else if (typedObjectTypes.contains(name)) {
+			return TYPED;
+		} else if (dataType.isPrimitive()) {
+			return VALUE;
+		}
+		return STATE;
+	}
+
+	/**
+	 * Check if the datatype has no ontology representation, so its values cannot
+	 * be found by string matching (e.g. String "hello" or int "3").
+	 *
+	 * @return true for numeric and other primitive types
+	 */
+	boolean isWithoutOntologyRepresentation() {
+		return this == NUMERIC || this == PRIMITIVE;
+	}
+}
@@ -0,0 +1,67 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import java.util.BitSet;
+
+/**
+ * Best score per {@link OntologyIndex} ID: a primitive score array plus a bitset
+ * of the IDs that have a score, instead of a map of individuals to boxed
+ * doubles. The overlap of two metrics is the AND of their bitsets.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+final class DenseScores {
+
+	private final double[] scores;
+	private final BitSet present;
+
+	DenseScores(int size) {
+		scores = new double[size];
+		present = new BitSet(size);
+	}
+
+	/**
+	 * Keep the score if it is the first or a better one for the ID.
+	 *
+	 * @param id
+	 *            ID of the individual
+	 * @param score
+	 *            score
+	 */
+	void offer(int id, double score) {
+		if (!present.get(id) || score > scores[id]) {
+			scores[id] = score;
+			present.set(id);
+		}
+	}
+
+	boolean contains(int id) {
+		return present.get(id);
+	}
+
+	double get(int id) {
+		return scores[id];
+	}
+
+	/**
+	 * Get the IDs having a score.
+	 *
+	 * @return bitset of IDs (live view, must not be modified)
+	 */
+	BitSet ids() {
+		return present;
+	}
+
+	/**
+	 * Get the IDs having a score in both.
+	 *
+	 * @param other
+	 *            other scores
+	 * @return new bitset of the common IDs
+	 */
+	BitSet overlap(DenseScores other) {
+		BitSet overlap = (BitSet) present.clone();
+		overlap.and(other.present);
+		return overlap;
+	}
+}
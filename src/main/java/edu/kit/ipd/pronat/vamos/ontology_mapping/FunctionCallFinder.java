@@ -1,7 +1,10 @@
 package edu.kit.ipd.pronat.vamos.ontology_mapping;
 
 import edu.kit.ipd.parse.luna.graph.INode;
-import edu.kit.ipd.parse.ontology_connection.parameter.IParameter;
+import edu.kit.ipd.parse.luna.tools.ConfigManager;
+import edu.kit.ipd.parse.ontology_connection.IIndividual;
+import edu.kit.ipd.parse.ontology_connection.method.IMethod;
+import edu.kit.ipd.pronat.vamos.MethodSynthesizer;
 import edu.kit.ipd.pronat.vamos.command_representation.AbstractInstructionParameter;
 import edu.kit.ipd.pronat.vamos.command_representation.DescriptionParameter;
 import edu.kit.ipd.pronat.vamos.programm_representation.FunctionCallCandidate;
@@ -22,9 +25,14 @@ import java.util.stream.Collectors;
 public class FunctionCallFinder {
 
 	private static final Logger logger = LoggerFactory.getLogger(FunctionCallFinder.class);
-	// some of the primitive datatypes have no ontology representation -> the values could NOT be found through string matched
-	private static final String[] TYPES_WITHOUT_ONTOLOGY_REPR = { "String", "int", "double", "float", "short", "char", "boolean", "long" };
 	private static final double SCORE_PRIMITIVE_PARAMS = 0.8;
+	// create candidates only for the first method of each class of same individuals
+	private final boolean oneSameIndividual;
+
+	public FunctionCallFinder() {
+		Properties props = ConfigManager.getConfiguration(MethodSynthesizer.class);
+		oneSameIndividual = Boolean.parseBoolean(props.getProperty("SCORE_ONE_SAME_INDIVIDUAL", "false"));
+	}
 
 	/**
 	 * Create function call candidates consisting of all possible combinations of
@@ -38,15 +46,80 @@ public class FunctionCallFinder {
 	 */
 	public List<FunctionCallCandidate> findFunctionCallCandidates(List<FunctionNameCandidate> functionNameCandidates,
 			List<List<FunctionParameterCandidate>> functionParameterCandidateList) {
+		return findFunctionCallCandidates(functionNameCandidates, functionParameterCandidateList, 0);
+	}
+
+	/**
+	 * Create function call candidates consisting of all possible combinations of
+	 * the found name matches and parameter matches PER instruction. Name
+	 * candidates whose function calls cannot reach the top N are skipped, see
+	 * {@link #findHopelessNameCandidates(List, List, int, MappingArena)}.
+	 *
+	 * @param functionNameCandidates
+	 *            matches of function names found in the ontology
+	 * @param functionParameterCandidateList
+	 *            matches of parameters found in the ontology
+	 * @param topN
+	 *            number of best function calls which are used, 0 to create the
+	 *            function calls of all name candidates
+	 * @return list of function calls
+	 */
+	public List<FunctionCallCandidate> findFunctionCallCandidates(List<FunctionNameCandidate> functionNameCandidates,
+			List<List<FunctionParameterCandidate>> functionParameterCandidateList, int topN) {
+		return findFunctionCallCandidates(functionNameCandidates, functionParameterCandidateList, topN, new MappingArena());
+	}
+
+	/**
+	 * Create function call candidates (see
+	 * {@link #findFunctionCallCandidates(List, List, int)}), using the scratch
+	 * structures of the arena.
+	 *
+	 * @param functionNameCandidates
+	 *            matches of function names found in the ontology
+	 * @param functionParameterCandidateList
+	 *            matches of parameters found in the ontology
+	 * @param topN
+	 *            number of best function calls which are used, 0 to create the
+	 *            function calls of all name candidates
+	 * @param arena
+	 *            scratch structures of the current mapping
+	 * @return list of function calls
+	 */
+	List<FunctionCallCandidate> findFunctionCallCandidates(List<FunctionNameCandidate> functionNameCandidates,
+			List<List<FunctionParameterCandidate>> functionParameterCandidateList, int topN, MappingArena arena) {
+		arena.enter();
+		try {
+			return createFunctionCallCandidates(functionNameCandidates, functionParameterCandidateList, topN, arena);
+		} finally {
+			arena.exit();
+		}
+	}
+
+	private List<FunctionCallCandidate> createFunctionCallCandidates(List<FunctionNameCandidate> functionNameCandidates,
+			List<List<FunctionParameterCandidate>> functionParameterCandidateList, int topN, MappingArena arena) {
+		boolean[] hopeless = topN > 0 ? findHopelessNameCandidates(functionNameCandidates, functionParameterCandidateList, topN, arena)
+				: null;
 
 		// for every name candidate of this instruction: create a combination with the given parameters
 		List<FunctionCallCandidate> candidates = new ArrayList<>();
-		for (FunctionNameCandidate nameCandidate : functionNameCandidates) {
+		Map<IMethod, IMethod> methodPerSameIndividualsClass = arena.map();
+		for (int n = 0; n < functionNameCandidates.size(); n++) {
+			FunctionNameCandidate nameCandidate = functionNameCandidates.get(n);
+			if (hopeless != null && hopeless[n]) {
+				continue;
+			}
+			if (oneSameIndividual) {
+				IMethod method = nameCandidate.getMethodCandidate();
+				IMethod classMethod = methodPerSameIndividualsClass
+						.putIfAbsent(OntologyIndex.getInstance().getSameIndividualsRepresentative(method), method);
+				if (classMethod != null && !classMethod.equals(method)) {
+					continue; // a same individual of this method is scored instead
+				}
+			}
 
 			// check if one of the parameters of the name candidate (ontology method) has a primitive datatype (having no ontology representation)
-			Set<IParameter> ontologyMethodParameters = nameCandidate.getMethodCandidate().getParameters();
-			int numOfPrimitiveOParams = (int) ontologyMethodParameters.stream()
-					.filter(p -> Arrays.asList(TYPES_WITHOUT_ONTOLOGY_REPR).contains(p.getDataType().getName())).count();
+			int numOfPrimitiveOParams = OntologyIndex.getInstance().getMethodDescriptor(nameCandidate.getMethodCandidate())
+					.getPrimitiveCount();
 
 			// no parameters with primitive datatype -> add 1 Function Call PER paramCombination
 			if (numOfPrimitiveOParams == 0) {
@@ -99,6 +172,142 @@ public class FunctionCallFinder {
 		return candidates;
 	}
 
+	/**
+	 * Find the name candidates whose function calls cannot reach the top N. The
+	 * lower bounds of the scores of the name candidates which always get a scored
+	 * function call (at least one per class of same individuals survives the
+	 * duplicate removal) give a floor of the N-th best score. A name candidate is
+	 * hopeless if the upper bound of its scores is below this floor. The upper
+	 * bound depends on the number of parameters which can be mapped: at most the
+	 * number of parameter candidates per function call, and at most the number of
+	 * method parameters whose datatype kind fits one of the matched parameter
+	 * candidates, computed once per method signature. Only name candidates which
+	 * are the only one of their class are skipped, so the duplicate removal keeps
+	 * the same function calls.
+	 *
+	 * @param functionNameCandidates
+	 *            matches of function names found in the ontology
+	 * @param functionParameterCandidateList
+	 *            matches of parameters found in the ontology
+	 * @param topN
+	 *            number of best function calls which are used
+	 * @param arena
+	 *            scratch structures of the current mapping
+	 * @return flags of the hopeless name candidates
+	 */
+	private boolean[] findHopelessNameCandidates(List<FunctionNameCandidate> functionNameCandidates,
+			List<List<FunctionParameterCandidate>> functionParameterCandidateList, int topN, MappingArena arena) {
+		OntologyIndex index = OntologyIndex.getInstance();
+		boolean[] hopeless = new boolean[functionNameCandidates.size()];
+
+		// kinds of the matched parameter candidates
+		boolean objects = false;
+		boolean values = false;
+		boolean states = false;
+		int nonEmptyParameterLists = 0;
+		double maxParamScore = 1.0; // primitive parameter candidates
+		for (List<FunctionParameterCandidate> parameterCandidates : functionParameterCandidateList) {
+			if (!parameterCandidates.isEmpty()) {
+				nonEmptyParameterLists++;
+			}
+			for (FunctionParameterCandidate parameterCandidate : parameterCandidates) {
+				maxParamScore = Math.max(maxParamScore, parameterCandidate.getSimilarityScore());
+				IIndividual individual = parameterCandidate.getParameterCandidate();
+				int id = individual == null ? -1 : index.getId(individual);
+				objects |= id < 0 || index.isObject(id);
+				values |= id < 0 || index.isValue(id);
+				states |= id < 0 || index.isState(id);
+			}
+		}
+
+		// lower bounds per class of same individuals, only if one of them always gets a function call
+		double[] maxScores = new double[functionNameCandidates.size()];
+		Map<IMethod, Integer> nameCandidatesPerClass = arena.map();
+		Map<IMethod, Double> minScorePerClass = arena.map();
+		Set<IMethod> alwaysScoredClasses = arena.set();
+		int[] mappableParamsPerSignature = new int[index.getNumSignatures()];
+		Arrays.fill(mappableParamsPerSignature, -1);
+		for (int n = 0; n < functionNameCandidates.size(); n++) {
+			FunctionNameCandidate nameCandidate = functionNameCandidates.get(n);
+			MethodDescriptor descriptor = index.getMethodDescriptor(nameCandidate.getMethodCandidate());
+			int numExtractedParams = nameCandidate.getExtractedInstruction().getClearedInstructionParameters().size();
+			double nameScore = nameCandidate.getSimilarityScore();
+
+			int signatureId = descriptor.getSignatureId();
+			int mappableParams = signatureId >= 0 ? mappableParamsPerSignature[signatureId] : -1;
+			if (mappableParams < 0) {
+				mappableParams = getMappableParameterCount(descriptor, numExtractedParams > 0, objects, values, states);
+				if (signatureId >= 0) {
+					mappableParamsPerSignature[signatureId] = mappableParams;
+				}
+			}
+			int maxValidMappedParams = Math.min(mappableParams, Math.max(nonEmptyParameterLists, numExtractedParams));
+			maxScores[n] = FunctionCallScorer.getMaxFunctionCallScore(nameScore, numExtractedParams, descriptor.getParameterCount(),
+					maxValidMappedParams, maxParamScore);
+
+			IMethod representative = index.getSameIndividualsRepresentative(nameCandidate.getMethodCandidate());
+			nameCandidatesPerClass.merge(representative, 1, Integer::sum);
+			minScorePerClass.merge(representative,
+					FunctionCallScorer.getMinFunctionCallScore(nameScore, numExtractedParams, descriptor.getParameterCount()), Math::min);
+			if (FunctionCallScorer.isAlwaysScored(nameScore, descriptor.getParameterCount())) {
+				alwaysScoredClasses.add(representative);
+			}
+		}
+
+		// floor: N-th best lower bound of the classes
+		if (alwaysScoredClasses.size() < topN) {
+			return hopeless;
+		}
+		double[] floors = alwaysScoredClasses.stream().mapToDouble(minScorePerClass::get).sorted().toArray();
+		double floor = floors[floors.length - topN];
+
+		int numHopeless = 0;
+		for (int n = 0; n < functionNameCandidates.size(); n++) {
+			IMethod representative = index.getSameIndividualsRepresentative(functionNameCandidates.get(n).getMethodCandidate());
+			if (nameCandidatesPerClass.get(representative) == 1 && maxScores[n] < floor - MathUtils.BOUND_SLACK) {
+				hopeless[n] = true;
+				numHopeless++;
+			}
+		}
+		logger.debug("Skip {} of {} name candidates which cannot reach the top{} (score floor {}).", numHopeless,
+				functionNameCandidates.size(), topN, floor);
+		return hopeless;
+	}
+
+	/**
+	 * Count the parameters of the method a parameter candidate may be mapped to,
+	 * following FunctionCallScorer#checkDataType: primitive candidates to types
+	 * without ontology representation, objects to Object and typed object types,
+	 * values to primitive datatypes (of any kind but STATE, e.g. a typed object
+	 * type may be primitive) and states to datatypes of the same name (of any
+	 * kind).
+	 */
+	private static int getMappableParameterCount(MethodDescriptor descriptor, boolean primitives, boolean objects, boolean values,
+			boolean states) {
+		int count = 0;
+		for (DataTypeKind kind : DataTypeKind.values()) {
+			if (isMappable(kind, primitives, objects, values, states)) {
+				count += descriptor.getKindCount(kind);
+			}
+		}
+		return count;
+	}
+
+	private static boolean isMappable(DataTypeKind kind, boolean primitives, boolean objects, boolean values, boolean states) {
+		if (states || (primitives && kind.isWithoutOntologyRepresentation())) {
+			return true;
+		}
+		switch (kind) {
+		case OBJECT:
+		case TYPED:
+			return objects || values;
+		case STATE:
+			return false;
+		default:
+			return values;
+		}
+	}
+
 	private FunctionCallCandidate getCombinedExtractedParametersFunctionCall(FunctionNameCandidate nameCandidate,
 			List<AbstractInstructionParameter> instructionParameters) {
 		// concat all extracted params and add 1 "big" function call candidate
@@ -117,8 +326,8 @@ public class FunctionCallFinder {
 
 	/**
 	 * Handle datatypes of ontology parameters which have no ontology individual
-	 * representation. If the datatype is one of the
-	 * {@link this.TYPES_WITHOUT_ONTOLOGY_REPR}, the parameters in the user input
+	 * representation. If the datatype is one of the types without ontology
+	 * representation (see {@link DataTypeKind}), the parameters in the user input
 	 * could not be found by string matching! (e.g. String "hello" or int "3")
 	 *
 	 * In this case, no correct parameter-to-ontology-element match can be found per
@@ -19,7 +19,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
 
 /**
  * @author Sebastian Weigelt
@@ -34,10 +35,10 @@ public class FunctionCallScorer {
 	private static final double FUNCTION_PARAM_WEIGHT = 0.4;
 	private static final double EXTRACTED_PARAM_WEIGHT = 0.3;
 
-	// some of the primitive datatypes have no ontology representation -> the values could NOT be found through string matched
-	private static final String[] TYPES_WITHOUT_ONTOLOGY_REPR = { "String", "int", "double", "float", "short", "char", "boolean", "long" };
-	private static final String[] NUMERIC_TYPES = { "int", "double", "float", "short", "long" };
 	protected static final StringOntologyMatcher stringMatcher = new StringOntologyMatcher();
+	// combinations of matched params to ontology param slots, which only depend on the numbers of params; kept per
+	// scorer (one per mapper and execution), so it only holds the pairs of numbers of the current input
+	private final Map<Long, int[][]> slotCombinationCache = new ConcurrentHashMap<>();
 
 	/**
 	 * Calculate a score for each FunctionCallCandidate according to the extracted
@@ -49,100 +50,241 @@ public class FunctionCallScorer {
 	 * @return list of scored function calls
 	 */
 	public List<FunctionCallCandidate> calculateCombinedScores(List<FunctionCallCandidate> functionCallCandidates) {
-		List<FunctionCallCandidate> scoredFunctionCallCandidates = new ArrayList<>();
+		ScoredFunctionCalls calls = new ScoredFunctionCalls();
+		scoreCandidates(functionCallCandidates, calls, new MappingArena(), call -> true);
+
+		List<FunctionCallCandidate> scoredFunctionCallCandidates = new ArrayList<>(calls.size());
+		for (int call = 0; call < calls.size(); call++) {
+			scoredFunctionCallCandidates.add(materialize(functionCallCandidates, calls, call));
+		}
+
+		logger.debug("Calculated scores for all {} function call candidates.", scoredFunctionCallCandidates.size());
+		return scoredFunctionCallCandidates;
+	}
+
+	/**
+	 * Calculate a score for each FunctionCallCandidate (see
+	 * {@link #calculateCombinedScores(List)}) and keep only the top N. The scored
+	 * function calls are kept in their compact form, only the top N are built as
+	 * FunctionCallCandidates.
+	 *
+	 * @param functionCallCandidates
+	 *            candidates for each function call
+	 * @param topNcandidates
+	 *            number of candidates to keep (see in config "TOP_N")
+	 * @return top N scored function calls, highest score first
+	 */
+	public List<FunctionCallCandidate> getTopNScoredCandidates(List<FunctionCallCandidate> functionCallCandidates, int topNcandidates) {
+		return getTopNScoredCandidates(functionCallCandidates, topNcandidates, new MappingArena());
+	}
+
+	/**
+	 * Calculate a score for each FunctionCallCandidate and keep only the top N (see
+	 * {@link #getTopNScoredCandidates(List, int)}), using the scratch structures of
+	 * the arena.
+	 *
+	 * @param functionCallCandidates
+	 *            candidates for each function call
+	 * @param topNcandidates
+	 *            number of candidates to keep (see in config "TOP_N")
+	 * @param arena
+	 *            scratch structures of the current mapping
+	 * @return top N scored function calls, highest score first
+	 */
+	List<FunctionCallCandidate> getTopNScoredCandidates(List<FunctionCallCandidate> functionCallCandidates, int topNcandidates,
+			MappingArena arena) {
+		ScoredFunctionCalls calls = arena.scoredCalls();
+		TopNSelector selector = arena.selector(topNcandidates);
+		scoreCandidates(functionCallCandidates, calls, arena, call -> {
+			selector.offer(calls.getScore(call), call);
+			return true;
+		});
+
+		List<FunctionCallCandidate> topN = new ArrayList<>();
+		for (int call : selector.toIndices()) {
+			topN.add(materialize(functionCallCandidates, calls, call));
+		}
+		logger.debug("Calculated scores for all {} function call candidates. Found top{} candidates. Highest score: ({}).",
+				selector.getOffered(), topN.size(), topN.isEmpty() ? null : topN.get(0).getFunctionCallScore());
+		return topN;
+	}
+
+	/**
+	 * Find the first scored function call (in the order of
+	 * {@link #calculateCombinedScores(List)}) with at least the given score. The
+	 * scoring stops at this function call.
+	 *
+	 * @param functionCallCandidates
+	 *            candidates for each function call
+	 * @param minScore
+	 *            minimal function call score
+	 * @param arena
+	 *            scratch structures of the current mapping
+	 * @return scored function call, or null if no function call reaches the score
+	 */
+	FunctionCallCandidate findFirstScoredCandidate(List<FunctionCallCandidate> functionCallCandidates, double minScore,
+			MappingArena arena) {
+		ScoredFunctionCalls calls = arena.scoredCalls();
+		int call = scoreCandidates(functionCallCandidates, calls, arena, c -> calls.getScore(c) < minScore);
+		return call >= 0 ? materialize(functionCallCandidates, calls, call) : null;
+	}
+
+	// scores the candidates into the calls and passes the position of every call which is no "duplicate" to the sink,
+	// until the sink returns false: returns the position of this call, or -1 if all candidates are scored
+	private int scoreCandidates(List<FunctionCallCandidate> functionCallCandidates, ScoredFunctionCalls calls, MappingArena arena,
+			IntPredicate sink) {
+		arena.enter();
+		try {
+			return scoreCandidates(functionCallCandidates, calls, new DuplicateFilter(functionCallCandidates, calls, arena), sink);
+		} finally {
+			arena.exit();
+		}
+	}
+
+	private int scoreCandidates(List<FunctionCallCandidate> functionCallCandidates, ScoredFunctionCalls calls,
+			DuplicateFilter duplicateFilter, IntPredicate sink) {
 
 		// search the candidates for matching ontology parameters of the ontology method
-		for (FunctionCallCandidate candidate : functionCallCandidates) {
-			logger.debug(">> Calculate score for function call candidate number {}:", functionCallCandidates.indexOf(candidate) + 1);
+		for (int c = 0; c < functionCallCandidates.size(); c++) {
+			FunctionCallCandidate candidate = functionCallCandidates.get(c);
+			logger.debug(">> Calculate score for function call candidate number {}:", c + 1);
 
-			IMethod ontologyMethod = candidate.getNameCandidate().getMethodCandidate(); // ontology method corresponding to function name
-			Set<IParameter> ontologyMethodParameters = ontologyMethod.getParameters(); // parameters of the ontology method
+			FunctionNameCandidate nameCandidate = candidate.getNameCandidate();
+			MethodDescriptor descriptor = OntologyIndex.getInstance().getMethodDescriptor(nameCandidate.getMethodCandidate());
+			IParameter[] ontologyMethodParameters = descriptor.getParameters(); // parameters of the ontology method
 			List<FunctionParameterCandidate> matchedParameters = candidate.getParameterCandidates(); // matched parameters by string matching
-			int numExtractedInstructionParams = candidate.getNameCandidate().getExtractedInstruction().getClearedInstructionParameters()
-					.size(); // parameters extracted by the classifiers
-
-			// get each combination of matched-parameter to ontology-parameter mappings
-			List<Map<FunctionParameterCandidate, IParameter>> candidatesAllParamCombis = getMatchedParamWithOntologyParamCombinations(
-					matchedParameters, new ArrayList<>(ontologyMethodParameters));
+			int numExtractedInstructionParams = nameCandidate.getExtractedInstruction().getClearedInstructionParameters().size(); // parameters extracted by the classifiers
 
 			// handle either no matched parameters or no ontology method parameters
-			if (candidatesAllParamCombis.isEmpty()) {
-				double score = scoreMethodsWithEmptyParams(candidate.getNameCandidate(), matchedParameters);
-				candidate.setFunctionCallScore(score);
-				scoredFunctionCallCandidates.add(candidate);
-
-				logger.debug("Found method with no parameters. Calculated score {} for candidate: '{}'", score, candidate.toString());
+			if (matchedParameters.isEmpty() || ontologyMethodParameters.length == 0) {
+				double score = scoreMethodsWithEmptyParams(nameCandidate, descriptor, matchedParameters);
+				logger.debug("Found method with no parameters. Calculated score {} for candidate: '{}'", score, candidate);
+				int call = calls.add(c, score);
+				if (!filter(call, calls, duplicateFilter, sink)) {
+					return call;
+				}
 				continue;
 			}
 
-			// build score for each parameter combination
+			// build score for each combination of matched-parameter to ontology-parameter mappings
+			int[][] combinations = getParameterSlotCombinations(matchedParameters.size(), ontologyMethodParameters.length);
+			logger.debug("Check all {} possible combinations for the set of {} matched param candidates and {} ontology params.",
+					combinations.length, matchedParameters.size(), ontologyMethodParameters.length);
 			boolean mappedAnyParam = false;
-			for (Map<FunctionParameterCandidate, IParameter> toMap : candidatesAllParamCombis) {
-
-				double parameterScore = 0; // score for the matched parameter candidates of this map
-
-				Map<FunctionParameterCandidate, IParameter> validMaps = new HashMap<>();
-				for (FunctionParameterCandidate paramCandidate : toMap.keySet()) {
-					IParameter ontologyParamToMap = toMap.get(paramCandidate);
-					IIndividual param = paramCandidate.getParameterCandidate();
-					FunctionParameterCandidate temp = new FunctionParameterCandidate(paramCandidate);
+			for (int[] combination : combinations) {
+
+				double parameterScore = 0; // score for the matched parameter candidates of this combination
+				int numValidMappedParams = 0;
+				for (int p = 0; p < combination.length; p++) {
+					int slot = combination[p];
+					if (slot < 0) {
+						continue; // matched parameter is not mapped in this combination
+					}
+					FunctionParameterCandidate paramCandidate = matchedParameters.get(p);
+					IParameter ontologyParamToMap = ontologyMethodParameters[slot];
 
-					boolean hasSameDataType = checkDataType(temp, param, ontologyParamToMap);
-					if (hasSameDataType) {
-						parameterScore += temp.getSimilarityScore();
-						validMaps.put(temp, ontologyParamToMap);
+					DataTypeCompatibility compatibility = checkDataType(paramCandidate, ontologyParamToMap, descriptor, slot);
+					if (compatibility.isCompatible()) {
+						parameterScore += paramCandidate.getSimilarityScore();
+						numValidMappedParams++;
+						calls.addPair(p, slot, compatibility.getSubstitute() != null ? compatibility.getSubstitute()
+								: paramCandidate.getParameterCandidate());
 
 						logger.debug("Found valid parameter match! ['{}' : '{}']",
-								(temp.isPrimitiveType() ? temp.getExtractedParameter().getParameterName() : param.getName()),
+								(paramCandidate.isPrimitiveType() ? paramCandidate.getExtractedParameter().getParameterName()
+										: paramCandidate.getParameterCandidate().getName()),
 								ontologyParamToMap.getName());
 						continue; // to skip following debug message
 					}
 					logger.debug("Not matchable!");
 				}
 
-				if (parameterScore > 0) { // if some matches found with this map -> calculate score
-					FunctionCallCandidate validCandidate = new FunctionCallCandidate(candidate.getNameCandidate(), matchedParameters);
-					validCandidate.setParameterCandidates(new ArrayList<>(validMaps.keySet()));
-					validCandidate.setMatchingOntologyParametersMap(validMaps);
-
-					double score = calculateFunctionCallScore(candidate.getNameCandidate().getSimilarityScore(), parameterScore,
-							numExtractedInstructionParams, validMaps.size(), ontologyMethodParameters.size());
-					validCandidate.setFunctionCallScore(score);
-
-					logger.debug("Calculated score {} for candidate: '{}'", score, validCandidate.toString());
-					scoredFunctionCallCandidates.add(validCandidate);
+				if (parameterScore > 0) { // if some matches found with this combination -> calculate score
+					double score = calculateFunctionCallScore(nameCandidate.getSimilarityScore(), parameterScore,
+							numExtractedInstructionParams, numValidMappedParams, ontologyMethodParameters.length);
+					logger.debug("Calculated score {} for {} mapped parameters of candidate: '{}'", score, numValidMappedParams, candidate);
+					int call = calls.add(c, score);
+					if (!filter(call, calls, duplicateFilter, sink)) {
+						return call;
+					}
 					mappedAnyParam = true;
+				} else {
+					calls.discardPairs();
 				}
 			}
 
 			// if none of the existing parameters could be mapped, add function call candidate with empty param list
-			if (!mappedAnyParam && candidate.getNameCandidate().getSimilarityScore() > 0.8) {
-
-				double score = calculateFunctionCallScore(candidate.getNameCandidate().getSimilarityScore(), 0,
-						numExtractedInstructionParams, 0, ontologyMethodParameters.size());
-				candidate.setFunctionCallScore(score);
-				scoredFunctionCallCandidates.add(candidate);
+			if (!mappedAnyParam && nameCandidate.getSimilarityScore() > 0.8) {
 
+				double score = calculateFunctionCallScore(nameCandidate.getSimilarityScore(), 0, numExtractedInstructionParams, 0,
+						ontologyMethodParameters.length);
 				logger.debug(
 						"Could not find any parameters for method '{}' with high similarity score. Calculated score {} for "
 								+ "candidate '{}'.",
-						candidate.getNameCandidate().getExtractedInstruction().getInstructionName(), score, candidate.toString());
+						nameCandidate.getExtractedInstruction().getInstructionName(), score, candidate);
+				int call = calls.add(c, score);
+				if (!filter(call, calls, duplicateFilter, sink)) {
+					return call;
+				}
 			}
 		}
+		return -1;
+	}
 
-		scoredFunctionCallCandidates = removeDuplicateCandidates(scoredFunctionCallCandidates);
+	// keeps the call and passes it to the sink, or removes it if it is a "duplicate"; false if the sink stops the scoring
+	private static boolean filter(int call, ScoredFunctionCalls calls, DuplicateFilter duplicateFilter, IntPredicate sink) {
+		if (duplicateFilter.accept(call)) {
+			return sink.test(call);
+		}
+		calls.removeLast();
+		return true;
+	}
 
-		logger.debug("Calculated scores for all {} function call candidates.", scoredFunctionCallCandidates.size());
-		return scoredFunctionCallCandidates;
+	/**
+	 * Build the FunctionCallCandidate of a scored function call: the unscored
+	 * candidate itself if no parameter is mapped, otherwise a new candidate with
+	 * copies of the mapped parameter candidates and their ontology parameters.
+	 *
+	 * @param functionCallCandidates
+	 *            unscored candidates for each function call
+	 * @param calls
+	 *            scored function calls
+	 * @param call
+	 *            position of the scored function call
+	 * @return scored function call candidate
+	 */
+	private FunctionCallCandidate materialize(List<FunctionCallCandidate> functionCallCandidates, ScoredFunctionCalls calls, int call) {
+		FunctionCallCandidate candidate = functionCallCandidates.get(calls.getCandidateIndex(call));
+		if (calls.getPairCount(call) == 0) {
+			candidate.setFunctionCallScore(calls.getScore(call));
+			return candidate;
+		}
+
+		IParameter[] ontologyMethodParameters = OntologyIndex.getInstance()
+				.getMethodDescriptor(candidate.getNameCandidate().getMethodCandidate()).getParameters();
+		List<FunctionParameterCandidate> validParameters = new ArrayList<>();
+		Map<FunctionParameterCandidate, IParameter> validMaps = new HashMap<>();
+		for (int pair = 0; pair < calls.getPairCount(call); pair++) {
+			FunctionParameterCandidate temp = new FunctionParameterCandidate(
+					candidate.getParameterCandidates().get(calls.getParameterIndex(call, pair)));
+			temp.setParameterCandidate(calls.getIndividual(call, pair)); // the sub-object, if substituted
+			validParameters.add(temp);
+			validMaps.put(temp, ontologyMethodParameters[calls.getSlot(call, pair)]);
+		}
+
+		FunctionCallCandidate validCandidate = new FunctionCallCandidate(candidate.getNameCandidate(), validParameters);
+		validCandidate.setMatchingOntologyParametersMap(validMaps);
+		validCandidate.setFunctionCallScore(calls.getScore(call));
+		return validCandidate;
 	}
 
-	private double scoreMethodsWithEmptyParams(FunctionNameCandidate nameCandidate, List<FunctionParameterCandidate> matchedParameters) {
+	private double scoreMethodsWithEmptyParams(FunctionNameCandidate nameCandidate, MethodDescriptor descriptor,
+			List<FunctionParameterCandidate> matchedParameters) {
 		IMethod ontologyMethod = nameCandidate.getMethodCandidate();
-		Set<IParameter> ontologyMethodParameters = nameCandidate.getMethodCandidate().getParameters();
 		List<AbstractInstructionParameter> instructionParams = nameCandidate.getExtractedInstruction().getClearedInstructionParameters();
 
 		// if ontology method needs no params, check the method name  (e.g. liftHead())
-		if (ontologyMethodParameters.isEmpty()) {
+		if (descriptor.getParameterCount() == 0) {
 
 			// if true, successfully mapped param to function name -> numValidMappedParams = 1, numOntoMethodParams = 1
 			if (matchedParameters.stream()
@@ -156,23 +298,30 @@ public class FunctionCallScorer {
 
 		// else calculate score only based on function name score
 		return calculateFunctionCallScore(nameCandidate.getSimilarityScore(), 0, instructionParams.size(), 0,
-				ontologyMethodParameters.size());
+				descriptor.getParameterCount());
 	}
 
 	/**
 	 * Check if datatypes of compared elements (matched parameter candidate and
-	 * ontology parameter) are equal.
+	 * ontology parameter) are equal. The verdicts for matched ontology individuals
+	 * are computed once per (individual, ontology parameter) pair and cached,
+	 * including the sub-object to pass instead of the individual.
 	 *
 	 * @param paramCandidate
 	 *            FunctionParameterCandidate data structure of the matched parameter
 	 *            candidate
-	 * @param param
-	 *            matched parameter candidate
 	 * @param ontologyParamToMap
 	 *            parameter of the ontology
-	 * @return true if match found
+	 * @param descriptor
+	 *            signature of the ontology method
+	 * @param slot
+	 *            position of the ontology parameter in the signature
+	 * @return compatibility verdict, with the sub-object to pass if substituted
 	 */
-	private boolean checkDataType(FunctionParameterCandidate paramCandidate, IIndividual param, IParameter ontologyParamToMap) {
+	private DataTypeCompatibility checkDataType(FunctionParameterCandidate paramCandidate, IParameter ontologyParamToMap,
+			MethodDescriptor descriptor, int slot) {
+		OntologyIndex index = OntologyIndex.getInstance();
+		DataTypeKind kind = descriptor.getKind(slot);
 
 		if (paramCandidate.isPrimitiveType()) {
 			logger.debug("Try to match parameter '{}' (primitive) to ontology param '{}' (type '{}').",
@@ -180,102 +329,96 @@ public class FunctionCallScorer {
 					ontologyParamToMap.getDataType().getName());
 
 			// check if both are numbers (pos-tag CD for cardinal number)
-			if (Arrays.asList(NUMERIC_TYPES).contains(ontologyParamToMap.getDataType().getName())) {
-				return paramCandidate.getExtractedParameter().getParameterNodes().stream()
-						.anyMatch(node -> node.getAttributeValue("pos").toString().equals("CD"));
+			if (kind == DataTypeKind.NUMERIC) {
+				return DataTypeCompatibility.of(paramCandidate.getExtractedParameter().getParameterNodes().stream()
+						.anyMatch(node -> node.getAttributeValue("pos").toString().equals("CD")));
 			}
 
-			return Arrays.asList(TYPES_WITHOUT_ONTOLOGY_REPR).contains(ontologyParamToMap.getDataType().getName());
+			return DataTypeCompatibility.of(kind == DataTypeKind.PRIMITIVE);
 		}
 
+		IIndividual param = paramCandidate.getParameterCandidate();
 		logger.debug("Try to match extracted parameter '{}' (class '{}') to ontology param '{}' (type '{}').", param.getName(),
 				param.getClass(), ontologyParamToMap.getName(), ontologyParamToMap.getDataType().getName());
 
+		int individualId = index.getId(param);
+		int dataTypeId = descriptor.getDataTypeId(slot);
+		DataTypeCompatibility compatibility;
+		if (individualId >= 0 && dataTypeId >= 0) {
+			compatibility = index.getCompatibilities().get(individualId, dataTypeId, () -> checkCompatibility(param, ontologyParamToMap, kind));
+		} else {
+			compatibility = checkCompatibility(param, ontologyParamToMap, kind);
+		}
+
+		if (compatibility.getSubstitute() != null) {
+			logger.debug("Found matching subobject '{}' of object '{}'.", compatibility.getSubstitute().getName(), param.getName());
+		}
+		return compatibility;
+	}
+
+	private DataTypeCompatibility checkCompatibility(IIndividual param, IParameter ontologyParamToMap, DataTypeKind kind) {
+		ParameterTypeIndex types = OntologyIndex.getInstance().getTypes();
 		if (param.getClass().equals(Object.class)) {
 			IObject objectCandidate = (IObject) param;
 
 			// object has the same data type as the ontology parameter
-			if (ontologyParamToMap.getDataType().getName().equals("Object")) {
-				return true;
+			if (kind == DataTypeKind.OBJECT) {
+				return DataTypeCompatibility.COMPATIBLE;
+			}
+
+			// ontology parameter is no typed object
+			int typeId = types.getTypeId(ontologyParamToMap.getDataType().getName());
+			if (typeId < 0) {
+				return DataTypeCompatibility.INCOMPATIBLE;
 			}
 
 			// object has the same special data type (e.g. openable) as the ontology parameter
-			IObject typedObject = stringMatcher.checkForTypedObjects(objectCandidate.getName(), ontologyParamToMap.getDataType());
-			if (typedObject != null) {
-				return true;
+			if (types.hasType(objectCandidate, typeId)) {
+				return DataTypeCompatibility.COMPATIBLE;
 			}
 
-			// one of the sub-objects of this object have the same data type
-			if (objectCandidate.hasSubObjects() && objectCandidate.getSubObjects().stream()
-					.anyMatch(subobj -> (stringMatcher.checkForTypedObjects(subobj.getName(), ontologyParamToMap.getDataType()) != null))) {
-				List<IObject> subObject = objectCandidate.getSubObjects().stream()
-						.filter(subObj -> subObj.getTypes().contains(ontologyParamToMap.getDataType().getName()))
-						.collect(Collectors.toList());
-				paramCandidate.setParameterCandidate(subObject.get(0)); // get first sub object and return it
-				logger.debug("Found matching subobject '{}' of object '{}'.", subObject.get(0).getName(), objectCandidate.getName());
-				return true;
+			// one of the sub-objects of this object have the same data type -> get first sub object and return it
+			IObject subObject = types.getSubObjectOfType(objectCandidate, typeId);
+			if (subObject != null) {
+				return DataTypeCompatibility.substitutedBy(subObject);
 			}
 
 		} else if (param.getClass().equals(Value.class)) {
 			IValue valueCandidate = (IValue) param;
 
-			// ontology parameter is no typed object
-			if (!ontologyParamToMap.getDataType().isPrimitive()) {
-				return false;
-			}
-
-			// value fits the ontology parameters' values
-			logger.debug("VALUEMATCH: {}", ontologyParamToMap.getDataType().getValues().contains(valueCandidate));
-			return ontologyParamToMap.getDataType().getValues().contains(valueCandidate);
+			// value fits the ontology parameters' values (ontology parameter is a primitive type)
+			boolean valueMatch = types.hasValue(ontologyParamToMap.getDataType(), valueCandidate);
+			logger.debug("VALUEMATCH: {}", valueMatch);
+			return DataTypeCompatibility.of(valueMatch);
 
 		} else if (param.getClass().equals(State.class)) {
 			IState statusCandidate = (IState) param;
 
 			// state fits the ontology parameters' states
 			logger.debug("STATEMATCH: {}", ontologyParamToMap.getDataType().getName().equals(statusCandidate.getName()));
-			return ontologyParamToMap.getDataType().getName().equals(statusCandidate.getName());
+			return DataTypeCompatibility.of(ontologyParamToMap.getDataType().getName().equals(statusCandidate.getName()));
 		}
 
-		return false;
+		return DataTypeCompatibility.INCOMPATIBLE;
 	}
 
 	/**
 	 * Find all possible combinations between the set of matched params and ontology
 	 * params. Example: candidate [a,b,c], ontology params [i,j] ->
 	 * [a:i,b:j,c:null], [a:null,b:i,c:j], [a:j,b:null,c:i] ... Constraint: |num of
-	 * candidate|-elements per chunk
+	 * candidate|-elements per chunk. The combinations only depend on the numbers of
+	 * params and are computed once per pair of numbers and scorer.
 	 *
-	 * @param matchedParams
-	 *            params matched by the string matcher
-	 * @param ontologyParams
-	 *            params from the current ontology method
-	 * @return list of combinations (map) between these two lists
+	 * @param numMatchedParams
+	 *            number of params matched by the string matcher
+	 * @param numOntologyParams
+	 *            number of params of the current ontology method
+	 * @return combinations: the slot of the ontology param per matched param, -1 if
+	 *         unmapped (see {@link MathUtils#cartesianProductIndices(int, int)})
 	 */
-	private List<Map<FunctionParameterCandidate, IParameter>> getMatchedParamWithOntologyParamCombinations(
-			List<FunctionParameterCandidate> matchedParams, List<IParameter> ontologyParams) {
-		List<Map<FunctionParameterCandidate, IParameter>> combinationsMap = new ArrayList<>();
-
-		if (matchedParams.size() > 0 && ontologyParams.size() > 0) {
-			List<Map<FunctionParameterCandidate, IParameter>> maps = MathUtils.cartesianProductTwoTypes(matchedParams, ontologyParams);
-
-			logger.debug("Check all {} possible combinations for the set of {} matched param candidates and {} ontology params.",
-					maps.size(), matchedParams.size(), ontologyParams.size());
-
-			for (Map<FunctionParameterCandidate, IParameter> map : maps) { // remove null mappings
-				Map<FunctionParameterCandidate, IParameter> mapNoNulls = new HashMap<>();
-				for (FunctionParameterCandidate c : map.keySet()) {
-					if (map.get(c) != null) {
-						mapNoNulls.put(c, map.get(c));
-
-						//                        logger.debug("Check combination of param candidate '{}' with ontology param '{}'",
-						//                                (c.isPrimitiveType() ? "isPrimitive" : c.getParameterCandidate().getName()), map.get(c).getName());
-					}
-				}
-				combinationsMap.add(mapNoNulls);
-			}
-		}
-
-		return combinationsMap;
+	private int[][] getParameterSlotCombinations(int numMatchedParams, int numOntologyParams) {
+		return slotCombinationCache.computeIfAbsent(((long) numMatchedParams << 32) | numOntologyParams,
+				key -> MathUtils.cartesianProductIndices(numMatchedParams, numOntologyParams));
 	}
 
 	/**
@@ -297,16 +440,11 @@ public class FunctionCallScorer {
 	private double calculateFunctionCallScore(double nameScore, double paramScore, int numExtractedInstructionParams,
 			int numValidMappedParams, int numOntoMethodParams) {
 		double score;
-		double perfectMatchBonus = 1;
-		if (nameScore > 0.9) {
-			perfectMatchBonus = FUNCTION_PERFECT_MATCH_WEIGHT; // add bonus for perfect matched methods
-		}
+		double perfectMatchBonus = getPerfectMatchBonus(nameScore);
 
 		if (numOntoMethodParams > 0) { // prevent penalization of methods without params
 			// score for covering the extracted params by the classifier
-			double extractedToNeededDiff = numExtractedInstructionParams - numOntoMethodParams;
-			double extractedToNeededWeight = extractedToNeededDiff / ((double) numExtractedInstructionParams); // normalizing on num extracted params
-			double extractedToNeededPen = EXTRACTED_PARAM_WEIGHT * (extractedToNeededWeight <= 0 ? 0 : extractedToNeededWeight);
+			double extractedToNeededPen = getExtractedParamPenalty(numExtractedInstructionParams, numOntoMethodParams);
 
 			// score for covering the mapped function params AND the ontology function params
 			double mappedToNeededWeight = ((double) numValidMappedParams) / ((double) numOntoMethodParams);
@@ -328,6 +466,72 @@ public class FunctionCallScorer {
 		return score;
 	}
 
+	private static double getPerfectMatchBonus(double nameScore) {
+		if (nameScore > 0.9) {
+			return FUNCTION_PERFECT_MATCH_WEIGHT; // add bonus for perfect matched methods
+		}
+		return 1;
+	}
+
+	private static double getExtractedParamPenalty(int numExtractedInstructionParams, int numOntoMethodParams) {
+		double extractedToNeededDiff = numExtractedInstructionParams - numOntoMethodParams;
+		double extractedToNeededWeight = extractedToNeededDiff / ((double) numExtractedInstructionParams); // normalizing on num extracted params
+		return EXTRACTED_PARAM_WEIGHT * (extractedToNeededWeight <= 0 ? 0 : extractedToNeededWeight);
+	}
+
+	/**
+	 * Upper bound of the scores of the function calls of a name candidate, see
+	 * {@link #calculateFunctionCallScore(double, double, int, int, int)}.
+	 *
+	 * @param nameScore
+	 *            string similarity score for the matched function
+	 * @param numExtractedInstructionParams
+	 *            number of extracted instruction parameters by the classifier
+	 * @param numOntoMethodParams
+	 *            number of method parameters of the ontology method
+	 * @param maxValidMappedParams
+	 *            maximal number of parameters which can be mapped
+	 * @param maxParamScore
+	 *            maximal similarity score of a parameter candidate
+	 * @return maximal achievable score
+	 */
+	static double getMaxFunctionCallScore(double nameScore, int numExtractedInstructionParams, int numOntoMethodParams,
+			int maxValidMappedParams, double maxParamScore) {
+		double weightedNameScore = FUNCTION_NAME_WEIGHT * getPerfectMatchBonus(nameScore) * nameScore;
+		if (numOntoMethodParams == 0) {
+			return weightedNameScore + FUNCTION_PARAM_WEIGHT; // parameter found in the method name
+		}
+		double weightedParamScore = maxValidMappedParams * maxParamScore * maxValidMappedParams / ((double) numOntoMethodParams)
+				- getExtractedParamPenalty(numExtractedInstructionParams, numOntoMethodParams);
+		return weightedNameScore + FUNCTION_PARAM_WEIGHT * Math.max(0, weightedParamScore);
+	}
+
+	/**
+	 * Lower bound of the scores of the function calls of a name candidate, see
+	 * {@link #calculateFunctionCallScore(double, double, int, int, int)}. Methods
+	 * without parameters and methods with a name score above 0.8 get at least one
+	 * scored function call.
+	 *
+	 * @param nameScore
+	 *            string similarity score for the matched function
+	 * @param numExtractedInstructionParams
+	 *            number of extracted instruction parameters by the classifier
+	 * @param numOntoMethodParams
+	 *            number of method parameters of the ontology method
+	 * @return minimal score of a scored function call
+	 */
+	static double getMinFunctionCallScore(double nameScore, int numExtractedInstructionParams, int numOntoMethodParams) {
+		double weightedNameScore = FUNCTION_NAME_WEIGHT * getPerfectMatchBonus(nameScore) * nameScore;
+		if (numOntoMethodParams == 0) {
+			return weightedNameScore;
+		}
+		return weightedNameScore - FUNCTION_PARAM_WEIGHT * getExtractedParamPenalty(numExtractedInstructionParams, numOntoMethodParams);
+	}
+
+	static boolean isAlwaysScored(double nameScore, int numOntoMethodParams) {
+		return numOntoMethodParams == 0 || nameScore > 0.8;
+	}
+
 	// TODO alternative Bewertungsfunktion @sebastian
 	// private double calculateFunctionCallScore(double nameScore, double paramScore, int numExtractedInstructionParams,
 	//                                   int numValidMappedParams, int numOntoMethodParams) {
@@ -358,103 +562,102 @@ public class FunctionCallScorer {
 	 * as above - we need just 1 per (function name, extracted param, primitive)
 	 * combination
 	 *
-	 * @param scoredFunctionCallCandidates
-	 *            scored candidates - with "duplicates"
-	 * @return scored candidates - without doubled candidates
+	 * The filter sees the scored function calls one by one and accepts only the
+	 * first of such "duplicates".
 	 */
-	private List<FunctionCallCandidate> removeDuplicateCandidates(List<FunctionCallCandidate> scoredFunctionCallCandidates) {
-		List<FunctionCallCandidate> filteredCandidates = new ArrayList<>();
-		Map<ImmutablePair<IMethod, List<AbstractInstructionParameter>>, FunctionCallCandidate> caseAmap = new HashMap<>();
-		List<ImmutablePair<IMethod, Map<FunctionParameterCandidate, IParameter>>> caseBlist = new ArrayList<>();
+	private static class DuplicateFilter {
+
+		private final OntologyIndex index = OntologyIndex.getInstance();
+		private final List<FunctionCallCandidate> functionCallCandidates;
+		private final ScoredFunctionCalls calls;
+		private final MappingArena arena;
+		// same individuals are grouped by the representative method of their class
+		private final Set<ImmutablePair<IMethod, List<AbstractInstructionParameter>>> caseAset;
+		private final Map<IMethod, IMethod> caseBmethodPerClass;
+		private final Map<IMethod, List<Integer>> caseBmappedCalls;
+		private final Set<IMethod> caseBwithoutMap;
+
+		DuplicateFilter(List<FunctionCallCandidate> functionCallCandidates, ScoredFunctionCalls calls, MappingArena arena) {
+			this.functionCallCandidates = functionCallCandidates;
+			this.calls = calls;
+			this.arena = arena;
+			caseAset = arena.set();
+			caseBmethodPerClass = arena.map();
+			caseBmappedCalls = arena.map();
+			caseBwithoutMap = arena.set();
+		}
 
-		for (FunctionCallCandidate candidate : scoredFunctionCallCandidates) {
+		/**
+		 * Check the scored function call added last.
+		 *
+		 * @param call
+		 *            position of the scored function call
+		 * @return false if it is a "duplicate" of a previously accepted call
+		 */
+		boolean accept(int call) {
+			FunctionCallCandidate candidate = functionCallCandidates.get(calls.getCandidateIndex(call));
 			IMethod methodCandidate = candidate.getNameCandidate().getMethodCandidate();
-			Set<IIndividual> sameIndividuals = methodCandidate.getSameIndividuals();
-
-			List<AbstractInstructionParameter> extractedParameter = new ArrayList<>();
-			candidate.getParameterCandidates().forEach(p -> extractedParameter.add(p.getExtractedParameter()));
+			IMethod representative = index.getSameIndividualsRepresentative(methodCandidate);
 
 			// case A: method requires 0 params -> add only 1 per (method AND same individual, extracted param)-combi
-			if (methodCandidate.getParameters().isEmpty()) {
-				// two matches are equal, if their parameter candidate lists are equal
-				if (caseAmap.containsKey(new ImmutablePair<>(methodCandidate, extractedParameter))) {
-					continue;
-				}
-				if (sameIndividuals.stream()
-						.anyMatch(same -> caseAmap.containsKey(new ImmutablePair<>((IMethod) same, extractedParameter)))) {
-					continue;
-				}
-				caseAmap.put(new ImmutablePair<>(methodCandidate, extractedParameter), candidate);
-				filteredCandidates.add(candidate);
-
-				// case B: filter out candidates with sameIndividuals-ontology-methods -> unique candidate -> add all
-			} else {
-				// two matches are equal, if their matched-parameter-To-ontology-parameter map is equal
-				if (candidate.getMatchingOntologyParametersMap() != null) {
-					if (caseBlist.stream()
-							.anyMatch(pair -> ((methodCandidate.equals(pair.getLeft())
-									&& equalHashMap(candidate.getMatchingOntologyParametersMap(), pair.getRight()))
-									|| sameIndividuals.contains(pair.getLeft())))) {
-						continue;
-					}
-					caseBlist.add(new ImmutablePair<>(methodCandidate, candidate.getMatchingOntologyParametersMap()));
-					filteredCandidates.add(candidate);
+			if (index.getMethodDescriptor(methodCandidate).getParameterCount() == 0) {
+				// a fresh list: the key must stay unchanged as long as the set is used
+				List<AbstractInstructionParameter> extractedParameter = new ArrayList<>(candidate.getParameterCandidates().size());
+				candidate.getParameterCandidates().forEach(p -> extractedParameter.add(p.getExtractedParameter()));
 
-				} else {
-					// add just one candidate with empty matched params
-					if (caseBlist.stream().anyMatch(pair -> ((methodCandidate.equals(pair.getLeft()) && pair.getRight() == null)
-							|| sameIndividuals.contains(pair.getLeft())))) {
-						continue;
-					}
-					caseBlist.add(new ImmutablePair<>(methodCandidate, null));
-					filteredCandidates.add(candidate);
-				}
+				// two matches are equal, if their parameter candidate lists are equal
+				return caseAset.add(new ImmutablePair<>(representative, Collections.unmodifiableList(extractedParameter)));
 			}
-		}
 
-		return filteredCandidates;
-	}
+			// case B: filter out candidates with sameIndividuals-ontology-methods -> unique candidate -> add all
+			IMethod classMethod = caseBmethodPerClass.get(representative);
+			if (classMethod != null && !classMethod.equals(methodCandidate)) {
+				return false; // a same individual of this method was already added
+			}
 
-	private boolean equalHashMap(Map<FunctionParameterCandidate, IParameter> a, Map<FunctionParameterCandidate, IParameter> b) {
-		if (a == null || b == null) {
-			return false;
-		}
+			// two matches are equal, if their matched-parameter-To-ontology-parameter mappings are equal
+			if (calls.getPairCount(call) > 0) {
+				List<Integer> mappedCalls = caseBmappedCalls.computeIfAbsent(methodCandidate, m -> arena.list());
+				for (int other : mappedCalls) {
+					if (equalMappings(call, other)) {
+						return false;
+					}
+				}
+				mappedCalls.add(call);
 
-		if (a.keySet().size() != b.keySet().size()) {
-			// logger.debug("Sizes dont match. Hashmaps unequal.");
-			return false;
+			} else if (!caseBwithoutMap.add(methodCandidate)) {
+				return false; // add just one candidate with empty matched params
+			}
+			caseBmethodPerClass.putIfAbsent(representative, methodCandidate);
+			return true;
 		}
 
-		for (FunctionParameterCandidate p : a.keySet()) {
-
-			// collect all matching param candidates
-			List<FunctionParameterCandidate> bMatches = b.keySet().stream()
-					.filter(bkey -> ((bkey.getSimilarityScore() == p.getSimilarityScore())
-							&& (bkey.isPrimitiveType() || bkey.getParameterCandidate().equals(p.getParameterCandidate()))
-							&& (bkey.getExtractedParameter().equals(p.getExtractedParameter()))
-							&& (bkey.isPrimitiveType() == p.isPrimitiveType())))
-					.collect(Collectors.toList());
-
-			// if no matching param candidates -> maps are unequal
-			if (bMatches.isEmpty()) {
-				// logger.debug("Found candidate {} in hashmap a not in hasmap b", p);
+		// both calls map parameters of the same method: compare the mapped pairs regardless of their order
+		private boolean equalMappings(int a, int b) {
+			if (calls.getPairCount(a) != calls.getPairCount(b)) {
 				return false;
+			}
 
-				// if paramcandidate (key) matches -> look if IParam (value) matches too
-			} else {
-				List<FunctionParameterCandidate> matchedOnes = bMatches.stream().filter(bkey -> ((b.get(bkey).equals(a.get(p)))))
-						.collect(Collectors.toList());
+			List<FunctionParameterCandidate> aParameters = functionCallCandidates.get(calls.getCandidateIndex(a)).getParameterCandidates();
+			List<FunctionParameterCandidate> bParameters = functionCallCandidates.get(calls.getCandidateIndex(b)).getParameterCandidates();
+			for (int aPair = 0; aPair < calls.getPairCount(a); aPair++) {
+				FunctionParameterCandidate p = aParameters.get(calls.getParameterIndex(a, aPair));
+				boolean found = false;
+				for (int bPair = 0; bPair < calls.getPairCount(b) && !found; bPair++) {
+					FunctionParameterCandidate bkey = bParameters.get(calls.getParameterIndex(b, bPair));
+					found = bkey.getSimilarityScore() == p.getSimilarityScore()
+							&& (bkey.isPrimitiveType() || calls.getIndividual(b, bPair).equals(calls.getIndividual(a, aPair)))
+							&& bkey.getExtractedParameter().equals(p.getExtractedParameter())
+							&& bkey.isPrimitiveType() == p.isPrimitiveType() && calls.getSlot(b, bPair) == calls.getSlot(a, aPair);
+				}
 
-				// if less matching -> new item -> maps are unequal
-				if (matchedOnes.isEmpty()) {
-					// logger.debug("Found some ParamCandidate-IParameter combination from hashmap a not in hasmap b");
+				// if no matching pair -> new item -> mappings are unequal
+				if (!found) {
 					return false;
 				}
 			}
+			return true;
 		}
-
-		// logger.debug("No mismatch found. Hashmaps equal.");
-		return true;
 	}
 
 	/**
@@ -465,14 +668,16 @@ public class FunctionCallScorer {
 	 * @return top N of those (see in config "TOP_N")
 	 */
 	public List<FunctionCallCandidate> getTopNCandidates(List<FunctionCallCandidate> candidates, int topNcandidates) {
+		TopNSelector selector = new TopNSelector(topNcandidates);
+		for (int i = 0; i < candidates.size(); i++) {
+			selector.offer(candidates.get(i).getFunctionCallScore(), i);
+		}
 
-		candidates.sort(Comparator.comparing(FunctionCallCandidate::getFunctionCallScore));
-		Collections.reverse(candidates); // sort descending
-
-		List<FunctionCallCandidate> topN = candidates.size() >= topNcandidates ? candidates.subList(0, topNcandidates) : candidates;
-
-		logger.debug("Found top{} candidates. Highest score: ({}).", topN.size(),
-				candidates.size() > 0 ? candidates.get(0).getFunctionCallScore() : null);
+		List<FunctionCallCandidate> topN = new ArrayList<>();
+		for (int i : selector.toIndices()) {
+			topN.add(candidates.get(i));
+		}
+		logger.debug("Found top{} candidates. Highest score: ({}).", topN.size(), topN.isEmpty() ? null : topN.get(0).getFunctionCallScore());
 		return topN;
 	}
 
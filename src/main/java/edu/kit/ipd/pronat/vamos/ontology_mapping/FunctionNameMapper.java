@@ -2,19 +2,15 @@ package edu.kit.ipd.pronat.vamos.ontology_mapping;
 
 import edu.kit.ipd.parse.luna.graph.IArc;
 import edu.kit.ipd.parse.luna.graph.INode;
-import edu.kit.ipd.parse.luna.tools.ConfigManager;
-import edu.kit.ipd.parse.ontology_connection.method.IMethod;
-import edu.kit.ipd.pronat.vamos.MethodSynthesizer;
 import edu.kit.ipd.pronat.vamos.command_representation.AbstractInstruction;
 import edu.kit.ipd.pronat.vamos.command_representation.AbstractInstructionParameter;
 import edu.kit.ipd.pronat.vamos.programm_representation.FunctionNameCandidate;
+import edu.kit.ipd.pronat.vamos.utils.GraphTypeRegistry;
 import edu.kit.ipd.pronat.vamos.utils.GraphUtils;
-import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * @author Sebastian Weigelt
@@ -26,18 +22,22 @@ public class FunctionNameMapper {
 	private static StringOntologyMatcher stringMatcher;
 	private boolean useSynonyms;
 	private static final double SYNONYM_NAME_WEIGHT = 0.5;
+	private static final double SEMANTIC_NAME_WEIGHT = 0.5;
+	private static final double PERFECT_SYNONYM_SCORE = 0.9f;
 	private static final String defaultStopWord = "mean";
-	private static String[] stopWords;
+	private static LexicalFilter lexicalFilter;
+	private final GraphTypeRegistry graphTypes;
+	private final ContextSynonymCache synonymCache;
+	private final SemanticOntologyMatcher semanticMatcher;
 
-	public FunctionNameMapper(boolean useContext) {
+	public FunctionNameMapper(boolean useContext, GraphTypeRegistry graphTypes, ContextSynonymCache synonymCache) {
 		useSynonyms = useContext;
+		this.graphTypes = graphTypes;
+		this.synonymCache = synonymCache;
 
-		Properties props = ConfigManager.getConfiguration(MethodSynthesizer.class);
-		stopWords = props.getProperty("STOP_WORDS").split(",");
-		stopWords = stopWords.length == 0 ? new String[] { defaultStopWord }
-				: Arrays.stream(stopWords).map(String::trim).toArray(String[]::new);
-
+		lexicalFilter = LexicalFilter.getInstance(defaultStopWord);
 		stringMatcher = new StringOntologyMatcher();
+		semanticMatcher = SemanticOntologyMatcher.getInstance();
 	}
 
 	/**
@@ -61,21 +61,31 @@ public class FunctionNameMapper {
 		List<String> combinedNames = concatFunctionWithParameterNames(instruction.getClearedLemmatizedInstructionName(), parameterNames);
 
 		// get similarity score for each name combination
-		List<ImmutablePair<Double, IMethod>> methodMatches = stringMatcher.getMethodEnsembleMatches(combinedNames);
+		ScoredMatches methodMatches = stringMatcher.findMethodMatches(combinedNames);
 
 		// create FunctionNameCandidate data structure
 		List<FunctionNameCandidate> nameCandidates = new ArrayList<>();
-		for (ImmutablePair<Double, IMethod> match : methodMatches) {
-			nameCandidates.add(new FunctionNameCandidate(match.getKey(), match.getValue(), instruction));
+		for (int i = 0; i < methodMatches.size(); i++) {
+			nameCandidates.add(new FunctionNameCandidate(methodMatches.getScore(i), methodMatches.getMethod(i), instruction));
 		}
 
 		// get perfect matches from instruction name synonyms
 		if (useSynonyms) {
-			List<ImmutablePair<Double, IMethod>> synonymMatches = getPerfectSynonymMatches(instruction.getClearedInstructionNameNodes());
-			for (ImmutablePair<Double, IMethod> synonymMatch : synonymMatches) {
+			ScoredMatches synonymMatches = getPerfectSynonymMatches(instruction.getClearedInstructionNameNodes());
+			for (int i = 0; i < synonymMatches.size(); i++) {
 				// decrease the influence of synonym matches
-				nameCandidates.add(
-						new FunctionNameCandidate((SYNONYM_NAME_WEIGHT * synonymMatch.getKey()), synonymMatch.getValue(), instruction));
+				nameCandidates.add(new FunctionNameCandidate((SYNONYM_NAME_WEIGHT * synonymMatches.getScore(i)), synonymMatches.getMethod(i),
+						instruction));
+			}
+		}
+
+		// get semantically similar methods from word vectors (e.g. grab -> take), if enabled
+		if (semanticMatcher != null) {
+			ScoredMatches semanticMatches = semanticMatcher.findMethodMatches(combinedNames);
+			for (int i = 0; i < semanticMatches.size(); i++) {
+				// decrease the influence of semantic matches
+				nameCandidates.add(new FunctionNameCandidate((SEMANTIC_NAME_WEIGHT * semanticMatches.getScore(i)), semanticMatches.getMethod(i),
+						instruction));
 			}
 		}
 
@@ -154,7 +164,7 @@ public class FunctionNameMapper {
 				lemma = (String) node.getAttributeValue("value");
 			}
 
-			if (!Arrays.asList(stopWords).contains(lemma)) {
+			if (!lexicalFilter.isStopword(lemma)) {
 				lemmatizedName.add(lemma);
 				clearedNodes.add(node);
 			}
@@ -174,18 +184,15 @@ public class FunctionNameMapper {
 	 *            instruction nodes (verbs)
 	 * @return perfect synonym matches
 	 */
-	private List<ImmutablePair<Double, IMethod>> getPerfectSynonymMatches(List<INode> clearedInstructionNameNodes) {
+	private ScoredMatches getPerfectSynonymMatches(List<INode> clearedInstructionNameNodes) {
 		List<String> synonyms = getNameSynonyms(clearedInstructionNameNodes);
-		List<ImmutablePair<Double, IMethod>> matches = stringMatcher.getMethodEnsembleMatches(synonyms);
 
 		// only return (almost) perfect synonym matches
-		matches = matches.stream().filter(match -> match.getKey() > 0.9f).collect(Collectors.toList());
+		ScoredMatches matches = stringMatcher.findMethodSynonymMatches(synonyms, PERFECT_SYNONYM_SCORE);
 
 		if (matches.size() > 0) {
-			StringJoiner joiner = new StringJoiner("; ");
-			matches.forEach(m -> joiner.add(m.getRight().getName()));
 			logger.debug("Found {} perfect synonym matches of function name '{}': '{}'", matches.size(),
-					GraphUtils.getUtteranceString(clearedInstructionNameNodes), joiner.toString());
+					GraphUtils.getUtteranceString(clearedInstructionNameNodes), matches.getNames());
 		} else {
 			logger.debug("Found no perfect synonym matches.");
 		}
@@ -202,38 +209,31 @@ public class FunctionNameMapper {
 	 * @return list of synonyms
 	 */
 	private List<String> getNameSynonyms(List<INode> nodes) {
-		List<String> synonyms = new ArrayList<>();
+		Set<String> synonyms = new LinkedHashSet<>();
 
 		for (INode node : nodes) {
-			List<? extends IArc> arcs = node.getIncomingArcs().stream()
-					.filter(arc -> arc.getType().equals(GraphUtils.getReferenceArcType())).collect(Collectors.toList());
+			List<? extends IArc> arcs = node.getIncomingArcsOfType(graphTypes.getReferenceArcType());
 
 			for (IArc arc : arcs) {
-				if (arc.getSourceNode().getType().equals(GraphUtils.getContextActionNodeType())) {
-					INode contextNode = arc.getSourceNode();
-					synonyms.addAll(GraphUtils.getListFromArrayToString((String) contextNode.getAttributeValue("synonyms")));
+				if (arc.getSourceNode().getType().equals(graphTypes.getContextActionNodeType())) {
+					synonyms.addAll(synonymCache.getSynonyms(arc.getSourceNode()));
 				}
 			}
 		}
 
 		logger.debug("Found {} synonyms of function name '{}': '{}'", synonyms.size(), GraphUtils.getUtteranceString(nodes),
 				Arrays.toString(synonyms.toArray()));
-		return synonyms;
+		return new ArrayList<>(synonyms);
 	}
 
 	/**
-	 * Removes stopwords from a given string and returns it.
+	 * Removes stopwords (whole words only) from a given string and returns it.
 	 *
 	 * @param input
 	 *            string input
 	 * @return cleared string output
 	 */
 	public String removeStopwordsFromString(String input) {
-		for (String stopword : stopWords) {
-			if (input.contains(stopword)) {
-				input = input.replace(stopword, "");
-			}
-		}
-		return input;
+		return lexicalFilter.removeStopwords(input);
 	}
 }
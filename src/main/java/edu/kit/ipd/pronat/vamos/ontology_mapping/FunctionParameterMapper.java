@@ -3,14 +3,16 @@ package edu.kit.ipd.pronat.vamos.ontology_mapping;
 import edu.kit.ipd.parse.luna.graph.IArc;
 import edu.kit.ipd.parse.luna.graph.INode;
 import edu.kit.ipd.parse.luna.tools.ConfigManager;
-import edu.kit.ipd.parse.ontology_connection.IIndividual;
+import edu.kit.ipd.parse.ontology_connection.method.IMethod;
+import edu.kit.ipd.parse.ontology_connection.parameter.IParameter;
 import edu.kit.ipd.pronat.vamos.MethodSynthesizer;
 import edu.kit.ipd.pronat.vamos.command_representation.AbstractInstruction;
 import edu.kit.ipd.pronat.vamos.command_representation.AbstractInstructionParameter;
+import edu.kit.ipd.pronat.vamos.programm_representation.FunctionNameCandidate;
 import edu.kit.ipd.pronat.vamos.programm_representation.FunctionParameterCandidate;
+import edu.kit.ipd.pronat.vamos.utils.GraphTypeRegistry;
 import edu.kit.ipd.pronat.vamos.utils.GraphUtils;
 import edu.kit.ipd.pronat.vamos.utils.MathUtils;
-import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,25 +27,30 @@ public class FunctionParameterMapper {
 
 	private static final Logger logger = LoggerFactory.getLogger(FunctionParameterMapper.class);
 	private static final double SYNONYM_NAME_WEIGHT = 0.6;
-	private static final String defaultPosTag = "NN";
-	private static String[] parameterPosTags;
+	private static final double SEMANTIC_NAME_WEIGHT = 0.6;
+	private static final double PERFECT_SYNONYM_SCORE = 0.9f;
 	private static final String defaultStopWord = "how";
-	private static String[] stopWords;
+	private static LexicalFilter lexicalFilter;
 	private static StringOntologyMatcher stringMatcher;
 	private boolean useSynonyms;
-
-	public FunctionParameterMapper(boolean useContext) {
+	private final GraphTypeRegistry graphTypes;
+	private final ContextSynonymCache synonymCache;
+	private final SemanticOntologyMatcher semanticMatcher;
+	// match parameters only with individuals fitting the datatypes of the best name candidates
+	private final boolean typeDirected;
+	private final int typeDirectedNameCandidates;
+
+	public FunctionParameterMapper(boolean useContext, GraphTypeRegistry graphTypes, ContextSynonymCache synonymCache) {
 		useSynonyms = useContext;
-
+		this.graphTypes = graphTypes;
+		this.synonymCache = synonymCache;
 		Properties props = ConfigManager.getConfiguration(MethodSynthesizer.class);
-		parameterPosTags = props.getProperty("PARAMETER_POS").split(",");
-		parameterPosTags = parameterPosTags.length == 0 ? new String[] { defaultPosTag }
-				: Arrays.stream(parameterPosTags).map(String::trim).toArray(String[]::new);
-		stopWords = props.getProperty("STOP_WORDS").split(",");
-		stopWords = stopWords.length == 0 ? new String[] { defaultStopWord }
-				: Arrays.stream(stopWords).map(String::trim).toArray(String[]::new);
+		typeDirected = Boolean.parseBoolean(props.getProperty("TYPE_DIRECTED_PARAMETERS", "false"));
+		typeDirectedNameCandidates = Integer.parseInt(props.getProperty("TYPE_DIRECTED_NAME_CANDIDATES", "10"));
 
+		lexicalFilter = LexicalFilter.getInstance(defaultStopWord);
 		stringMatcher = new StringOntologyMatcher();
+		semanticMatcher = SemanticOntologyMatcher.getInstance();
 	}
 
 	/**
@@ -57,6 +64,59 @@ public class FunctionParameterMapper {
 	 */
 	protected <U extends AbstractInstructionParameter> List<List<FunctionParameterCandidate>> findFunctionParameterCandidates(
 			List<U> instructionParams) {
+		return findFunctionParameterCandidates(instructionParams, (BitSet) null);
+	}
+
+	/**
+	 * Find possible function parameter candidates for the extracted instruction
+	 * matching in the connected ontology. If the type directed mode is enabled,
+	 * only individuals compatible with the parameter datatypes of the best
+	 * function name candidates are searched.
+	 *
+	 * @param instructionParams
+	 *            extracted parameters
+	 * @param nameCandidates
+	 *            function name candidates of the instruction
+	 * @return list of possible matching ontology parameters, each given with a
+	 *         double similarity score
+	 */
+	protected <U extends AbstractInstructionParameter> List<List<FunctionParameterCandidate>> findFunctionParameterCandidates(
+			List<U> instructionParams, List<FunctionNameCandidate> nameCandidates) {
+		return findFunctionParameterCandidates(instructionParams, typeDirected ? getCompatibleParameterIds(nameCandidates) : null);
+	}
+
+	/**
+	 * Get the IDs of the parameter individuals compatible with the parameter
+	 * datatypes of the best function name candidates.
+	 *
+	 * @param nameCandidates
+	 *            function name candidates
+	 * @return IDs in the {@link OntologyIndex}, or null if all individuals have to
+	 *         be searched
+	 */
+	private BitSet getCompatibleParameterIds(List<FunctionNameCandidate> nameCandidates) {
+		List<IMethod> methods = nameCandidates.stream()
+				.sorted(Comparator.comparingDouble(FunctionNameCandidate::getSimilarityScore).reversed())
+				.map(FunctionNameCandidate::getMethodCandidate).distinct().limit(typeDirectedNameCandidates).collect(Collectors.toList());
+
+		OntologyIndex index = OntologyIndex.getInstance();
+		BitSet compatible = new BitSet(index.size());
+		for (IMethod method : methods) {
+			if (method.getParameters().isEmpty()) {
+				// parameters are matched with the names of methods without parameters (e.g. liftHead())
+				return null;
+			}
+			for (IParameter parameter : method.getParameters()) {
+				compatible.or(index.getTypes().getCompatibleParameterIds(parameter.getDataType()));
+			}
+		}
+		logger.debug("Search parameters in {} individuals compatible with the datatypes of {} method candidates.", compatible.cardinality(),
+				methods.size());
+		return compatible;
+	}
+
+	private <U extends AbstractInstructionParameter> List<List<FunctionParameterCandidate>> findFunctionParameterCandidates(
+			List<U> instructionParams, BitSet scope) {
 		List<List<FunctionParameterCandidate>> parameterCandidateList = new ArrayList<>();
 
 		for (U param : instructionParams) {
@@ -72,21 +132,31 @@ public class FunctionParameterMapper {
 			}
 
 			// get similarity score for each parameter name permutation
-			List<ImmutablePair<Double, IIndividual>> parameterMatches = stringMatcher.getParameterEnsembleMatches(combinedNames);
+			ScoredMatches parameterMatches = stringMatcher.findParameterMatches(combinedNames, scope);
 
 			// create FunctionNameCandidate data structure
 			List<FunctionParameterCandidate> parameterCandidates = new ArrayList<>();
-			for (ImmutablePair<Double, IIndividual> match : parameterMatches) {
-				parameterCandidates.add(new FunctionParameterCandidate(match.getKey(), match.getValue(), param));
+			for (int i = 0; i < parameterMatches.size(); i++) {
+				parameterCandidates.add(new FunctionParameterCandidate(parameterMatches.getScore(i), parameterMatches.getIndividual(i), param));
 			}
 
 			// get perfect matches from instruction parameter synonyms
 			if (useSynonyms) {
-				List<ImmutablePair<Double, IIndividual>> synonymMatches = getPerfectSynonymMatches(param.getClearedParameterNodes());
-				for (ImmutablePair<Double, IIndividual> synonymMatch : synonymMatches) {
+				ScoredMatches synonymMatches = getPerfectSynonymMatches(param.getClearedParameterNodes(), scope);
+				for (int i = 0; i < synonymMatches.size(); i++) {
 					// decrease the influence of synonym matches
-					parameterCandidates.add(
-							new FunctionParameterCandidate((SYNONYM_NAME_WEIGHT * synonymMatch.getKey()), synonymMatch.getValue(), param));
+					parameterCandidates.add(new FunctionParameterCandidate((SYNONYM_NAME_WEIGHT * synonymMatches.getScore(i)),
+							synonymMatches.getIndividual(i), param));
+				}
+			}
+
+			// get semantically similar individuals from word vectors, if enabled
+			if (semanticMatcher != null) {
+				ScoredMatches semanticMatches = semanticMatcher.findParameterMatches(combinedNames, scope);
+				for (int i = 0; i < semanticMatches.size(); i++) {
+					// decrease the influence of semantic matches
+					parameterCandidates.add(new FunctionParameterCandidate((SEMANTIC_NAME_WEIGHT * semanticMatches.getScore(i)),
+							semanticMatches.getIndividual(i), param));
 				}
 			}
 
@@ -141,7 +211,7 @@ public class FunctionParameterMapper {
 
 			// get coreference for the current node (word)
 			String parameterCoreference = getParameterCoreference(node);
-			if (!parameterCoreference.equals("") && !Arrays.asList(stopWords).contains(parameterCoreference)) {
+			if (!parameterCoreference.equals("") && !lexicalFilter.isStopword(parameterCoreference)) {
 				clearedName.add(parameterCoreference);
 				clearedNodes.add(node);
 				continue;
@@ -149,7 +219,7 @@ public class FunctionParameterMapper {
 
 			// remove unnecessary part of speech tags
 			String partOfSpeech = (String) node.getAttributeValue("pos");
-			if (partOfSpeech != null && Arrays.asList(parameterPosTags).contains(partOfSpeech)) {
+			if (lexicalFilter.isParameterPos(partOfSpeech)) {
 				String word = (String) node.getAttributeValue("value");
 
 				// get lemma (singular of NN)
@@ -158,7 +228,7 @@ public class FunctionParameterMapper {
 				}
 
 				// remove stopwords
-				if (!Arrays.asList(stopWords).contains(word)) {
+				if (!lexicalFilter.isStopword(word)) {
 					clearedName.add(word);
 					clearedNodes.add(node);
 				}
@@ -233,18 +303,15 @@ public class FunctionParameterMapper {
 	 *            instruction nodes (nouns)
 	 * @return perfect synonym matches
 	 */
-	private List<ImmutablePair<Double, IIndividual>> getPerfectSynonymMatches(List<INode> clearedParameterNodes) {
+	private ScoredMatches getPerfectSynonymMatches(List<INode> clearedParameterNodes, BitSet scope) {
 		List<String> synonyms = getParameterSynonyms(clearedParameterNodes);
-		List<ImmutablePair<Double, IIndividual>> matches = stringMatcher.getParameterEnsembleMatches(synonyms);
 
 		// only return (almost) perfect synonym matches
-		matches = matches.stream().filter(match -> match.getKey() > 0.9f).collect(Collectors.toList());
+		ScoredMatches matches = stringMatcher.findParameterSynonymMatches(synonyms, PERFECT_SYNONYM_SCORE, scope);
 
 		if (matches.size() > 0) {
-			StringJoiner joiner = new StringJoiner("; ");
-			matches.forEach(m -> joiner.add(m.getRight().getName()));
 			logger.debug("Found {} perfect synonym matches of function parameter name '{}': '{}'", matches.size(),
-					GraphUtils.getUtteranceString(clearedParameterNodes), joiner.toString());
+					GraphUtils.getUtteranceString(clearedParameterNodes), matches.getNames());
 		}
 		return matches;
 	}
@@ -258,21 +325,20 @@ public class FunctionParameterMapper {
 	 * @return list of synonyms
 	 */
 	private List<String> getParameterSynonyms(List<INode> nodes) {
-		List<String> synonyms = new ArrayList<>();
+		Set<String> synonyms = new LinkedHashSet<>();
 
 		for (INode node : nodes) {
-			List<? extends IArc> arcs = node.getIncomingArcsOfType(GraphUtils.getReferenceArcType());
+			List<? extends IArc> arcs = node.getIncomingArcsOfType(graphTypes.getReferenceArcType());
 			for (IArc arc : arcs) {
-				if (arc.getSourceNode().getType().equals(GraphUtils.getContextEntityNodeType())) {
-					INode contextNode = arc.getSourceNode();
-					synonyms.addAll(GraphUtils.getListFromArrayToString((String) contextNode.getAttributeValue("synonyms")));
+				if (arc.getSourceNode().getType().equals(graphTypes.getContextEntityNodeType())) {
+					synonyms.addAll(synonymCache.getSynonyms(arc.getSourceNode()));
 				}
 			}
 		}
 
 		logger.debug("Found {} synonyms of function parameter '{}': '{}'", synonyms.size(), GraphUtils.getUtteranceString(nodes),
 				Arrays.toString(synonyms.toArray()));
-		return synonyms;
+		return new ArrayList<>(synonyms);
 	}
 
 	/**
@@ -292,14 +358,14 @@ public class FunctionParameterMapper {
 			return coreference; // skip these
 		}
 
-		List<? extends IArc> contextArcs = node.getIncomingArcsOfType(GraphUtils.getReferenceArcType());
+		List<? extends IArc> contextArcs = node.getIncomingArcsOfType(graphTypes.getReferenceArcType());
 		INode referenceNode = !contextArcs.isEmpty() ? contextArcs.get(0).getSourceNode() : null;
 		if (referenceNode == null) {
 			return coreference;
 		}
 
-		if (!contextArcs.isEmpty() && referenceNode.getType().equals(GraphUtils.getContextEntityNodeType())) {
-			List<? extends IArc> corefArcs = referenceNode.getOutgoingArcsOfType(GraphUtils.getContextRelationArcType());
+		if (!contextArcs.isEmpty() && referenceNode.getType().equals(graphTypes.getContextEntityNodeType())) {
+			List<? extends IArc> corefArcs = referenceNode.getOutgoingArcsOfType(graphTypes.getContextRelationArcType());
 
 			double confidence = 0;
 			for (IArc rel : corefArcs) {
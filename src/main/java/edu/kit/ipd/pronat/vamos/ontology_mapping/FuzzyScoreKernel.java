@@ -0,0 +1,149 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import com.google.common.base.CaseFormat;
+
+import java.util.Locale;
+
+/**
+ * Fuzzy score on char arrays, computing the same values as commons-text
+ * FuzzyScore#fuzzyScore with Locale.ENGLISH (one point per query char found in
+ * order in the term, two more if it directly follows the previous match). The
+ * terms are lowercased once when the {@link OntologyIndex} is built, the search
+ * string once per search, so a comparison allocates nothing.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+public final class FuzzyScoreKernel {
+
+	private static final ThreadLocal<FuzzyScoreKernel> KERNELS = ThreadLocal.withInitial(FuzzyScoreKernel::new);
+
+	// a search string is scored against many individuals in a row
+	private String lastQuery;
+	private char[] lastQueryChars;
+
+	private FuzzyScoreKernel() {
+	}
+
+	/**
+	 * Get the kernel of the current thread.
+	 *
+	 * @return kernel of the current thread
+	 */
+	public static FuzzyScoreKernel get() {
+		return KERNELS.get();
+	}
+
+	/**
+	 * Normalize an ontology individual name the way the fuzzy metric of the
+	 * {@link StringOntologyMatcher} compares it, e.g. Dishwasher.Door ->
+	 * "dishwasher door", move1 -> "move".
+	 *
+	 * @param individualName
+	 *            name of the individual
+	 * @return normalized name (not lowercased)
+	 */
+	public static String normalizeTerm(String individualName) {
+		String name = CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, individualName); // Dishwasher.Door -> dishwasher._door
+		return name.replace("_", " ") // remove underscores e.g. dishwasher._door -> dishwasher. door
+				.replace(".", "") // remove dots e.g. dishwasher. door -> dishwasher door
+				.replaceAll("[0-9]", ""); // remove numbers e.g. move1 -> move
+	}
+
+	/**
+	 * Lowercase a term or search string as FuzzyScore does.
+	 *
+	 * @param text
+	 *            term or search string
+	 * @return lowercased chars
+	 */
+	public static char[] lowerCase(String text) {
+		return text.toLowerCase(Locale.ENGLISH).toCharArray();
+	}
+
+	/**
+	 * Get the lowercased chars of a search string. The chars of the last search
+	 * string of the thread are reused.
+	 *
+	 * @param query
+	 *            search string
+	 * @return lowercased chars (must not be modified)
+	 */
+	public char[] compileQuery(String query) {
+		if (!query.equals(lastQuery)) {
+			lastQuery = query;
+			lastQueryChars = lowerCase(query);
+		}
+		return lastQueryChars;
+	}
+
+	/**
+	 * Fuzzy score of the query in the term.
+	 *
+	 * @param term
+	 *            lowercased term
+	 * @param query
+	 *            lowercased query
+	 * @return fuzzy score (same as FuzzyScore#fuzzyScore)
+	 */
+	public static int fuzzyScore(char[] term, char[] query) {
+		int score = 0;
+		int termIndex = 0;
+		int previousMatchingCharacterIndex = Integer.MIN_VALUE;
+		for (char queryChar : query) {
+			while (termIndex < term.length) {
+				if (term[termIndex++] == queryChar) {
+					score++;
+					// subsequent character matches further improve the score
+					if (previousMatchingCharacterIndex + 1 == termIndex - 1) {
+						score += 2;
+					}
+					previousMatchingCharacterIndex = termIndex - 1;
+					break;
+				}
+			}
+		}
+		return score;
+	}
+
+	/**
+	 * Fuzzy score normalized by the maximal score of the longer string, as used by
+	 * the {@link StringOntologyMatcher}.
+	 *
+	 * @param term
+	 *            lowercased term
+	 * @param termLength
+	 *            length of the term before lowercasing
+	 * @param query
+	 *            lowercased query
+	 * @param queryLength
+	 *            length of the query before lowercasing
+	 * @return normalized fuzzy score
+	 */
+	public static double normalizedScore(char[] term, int termLength, char[] query, int queryLength) {
+		int length = queryLength > termLength ? queryLength : termLength;
+		int maxScore = 3 * length - 2;
+		return ((double) fuzzyScore(term, query)) / ((double) maxScore);
+	}
+
+	/**
+	 * Upper bound of the normalized score given an upper bound of the chars the
+	 * query and the term have in common: every match scores at most three points,
+	 * the first one only one.
+	 *
+	 * @param common
+	 *            upper bound of the common chars
+	 * @param termLength
+	 *            length of the term before lowercasing
+	 * @param queryLength
+	 *            length of the query before lowercasing
+	 * @return upper bound of {@link #normalizedScore(char[], int, char[], int)}
+	 */
+	public static double upperBound(int common, int termLength, int queryLength) {
+		int length = queryLength > termLength ? queryLength : termLength;
+		if (common == 0 || length == 0) {
+			return 0D;
+		}
+		return ((double) (3 * common - 2)) / ((double) (3 * length - 2));
+	}
+}
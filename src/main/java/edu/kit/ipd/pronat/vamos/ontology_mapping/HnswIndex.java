@@ -0,0 +1,261 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import java.util.*;
+
+/**
+ * Hierarchical navigable small world graph for approximate nearest neighbor
+ * search over unit length vectors (similarity = dot product = cosine). Each
+ * vector is inserted on a random number of layers; a search descends greedily
+ * through the upper layers and runs a beam search with width efSearch on the
+ * bottom layer.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+public final class HnswIndex {
+
+	private static final long RANDOM_SEED = 42L;
+
+	private final int maxConnections;
+	private final int efConstruction;
+	private final double levelFactor;
+	private final Random random = new Random(RANDOM_SEED);
+
+	private final List<float[]> vectors = new ArrayList<>();
+	private final List<Integer> ids = new ArrayList<>();
+	// neighbors.get(node)[layer] is the neighbor list of the node, its size is in neighborCounts
+	private final List<int[][]> neighbors = new ArrayList<>();
+	private final List<int[]> neighborCounts = new ArrayList<>();
+	private int entryPoint = -1;
+	private int topLayer = -1;
+
+	/**
+	 * A found neighbor: the external ID and its similarity to the query.
+	 */
+	public static final class Neighbor {
+		private final int id;
+		private final float similarity;
+
+		Neighbor(int id, float similarity) {
+			this.id = id;
+			this.similarity = similarity;
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		public float getSimilarity() {
+			return similarity;
+		}
+	}
+
+	/**
+	 * Create an empty index.
+	 *
+	 * @param maxConnections
+	 *            maximal number of neighbors per node on the upper layers (twice as
+	 *            many on the bottom layer)
+	 * @param efConstruction
+	 *            beam width when inserting
+	 */
+	public HnswIndex(int maxConnections, int efConstruction) {
+		this.maxConnections = maxConnections;
+		this.efConstruction = efConstruction;
+		levelFactor = 1.0 / Math.log(Math.max(maxConnections, 2));
+	}
+
+	public int size() {
+		return vectors.size();
+	}
+
+	private int maxConnections(int layer) {
+		return layer == 0 ? 2 * maxConnections : maxConnections;
+	}
+
+	private static float similarity(float[] a, float[] b) {
+		float dot = 0f;
+		for (int i = 0; i < a.length; i++) {
+			dot += a[i] * b[i];
+		}
+		return dot;
+	}
+
+	/**
+	 * Insert a unit length vector.
+	 *
+	 * @param id
+	 *            external ID returned by searches
+	 * @param vector
+	 *            unit length vector (not copied)
+	 */
+	public void add(int id, float[] vector) {
+		int node = vectors.size();
+		int layer = (int) (-Math.log(1.0 - random.nextDouble()) * levelFactor);
+		vectors.add(vector);
+		ids.add(id);
+		int[][] lists = new int[layer + 1][];
+		for (int l = 0; l <= layer; l++) {
+			lists[l] = new int[maxConnections(l) + 1];
+		}
+		neighbors.add(lists);
+		neighborCounts.add(new int[layer + 1]);
+
+		if (entryPoint < 0) {
+			entryPoint = node;
+			topLayer = layer;
+			return;
+		}
+
+		int current = entryPoint;
+		for (int l = topLayer; l > layer; l--) {
+			current = greedySearch(vector, current, l);
+		}
+		for (int l = Math.min(layer, topLayer); l >= 0; l--) {
+			List<Neighbor> candidates = searchLayer(vector, current, efConstruction, l);
+			int connections = Math.min(candidates.size(), maxConnections);
+			for (int i = 0; i < connections; i++) {
+				int other = candidates.get(i).getId();
+				connect(node, other, l);
+				connect(other, node, l);
+			}
+			current = candidates.get(0).getId();
+		}
+		if (layer > topLayer) {
+			entryPoint = node;
+			topLayer = layer;
+		}
+	}
+
+	private void connect(int from, int to, int layer) {
+		int[] list = neighbors.get(from)[layer];
+		int[] counts = neighborCounts.get(from);
+		list[counts[layer]++] = to;
+		if (counts[layer] <= maxConnections(layer)) {
+			return;
+		}
+
+		// too many neighbors: drop the least similar one
+		float[] vector = vectors.get(from);
+		int worst = 0;
+		float worstSimilarity = Float.MAX_VALUE;
+		for (int i = 0; i < counts[layer]; i++) {
+			float s = similarity(vector, vectors.get(list[i]));
+			if (s < worstSimilarity) {
+				worstSimilarity = s;
+				worst = i;
+			}
+		}
+		list[worst] = list[--counts[layer]];
+	}
+
+	private int greedySearch(float[] query, int start, int layer) {
+		int current = start;
+		float best = similarity(query, vectors.get(current));
+		boolean improved = true;
+		while (improved) {
+			improved = false;
+			int[] list = neighbors.get(current)[layer];
+			int count = neighborCounts.get(current)[layer];
+			for (int i = 0; i < count; i++) {
+				float s = similarity(query, vectors.get(list[i]));
+				if (s > best) {
+					best = s;
+					current = list[i];
+					improved = true;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Beam search on one layer.
+	 *
+	 * @return found nodes (internal node numbers), most similar first
+	 */
+	private List<Neighbor> searchLayer(float[] query, int start, int ef, int layer) {
+		Comparator<Neighbor> bySimilarity = Comparator.comparingDouble(Neighbor::getSimilarity);
+		PriorityQueue<Neighbor> candidates = new PriorityQueue<>(bySimilarity.reversed());
+		PriorityQueue<Neighbor> results = new PriorityQueue<>(bySimilarity);
+		BitSet visited = new BitSet(vectors.size());
+
+		Neighbor first = new Neighbor(start, similarity(query, vectors.get(start)));
+		candidates.add(first);
+		results.add(first);
+		visited.set(start);
+		while (!candidates.isEmpty()) {
+			Neighbor candidate = candidates.poll();
+			if (results.size() >= ef && candidate.getSimilarity() < results.peek().getSimilarity()) {
+				break; // all remaining candidates are worse than the worst result
+			}
+			int[] list = neighbors.get(candidate.getId())[layer];
+			int count = neighborCounts.get(candidate.getId())[layer];
+			for (int i = 0; i < count; i++) {
+				int node = list[i];
+				if (visited.get(node)) {
+					continue;
+				}
+				visited.set(node);
+				float s = similarity(query, vectors.get(node));
+				if (results.size() < ef || s > results.peek().getSimilarity()) {
+					Neighbor neighbor = new Neighbor(node, s);
+					candidates.add(neighbor);
+					results.add(neighbor);
+					if (results.size() > ef) {
+						results.poll();
+					}
+				}
+			}
+		}
+
+		List<Neighbor> found = new ArrayList<>(results);
+		found.sort(bySimilarity.reversed());
+		return found;
+	}
+
+	/**
+	 * Find the approximate k nearest neighbors of the query.
+	 *
+	 * @param query
+	 *            unit length query vector
+	 * @param k
+	 *            number of neighbors
+	 * @param efSearch
+	 *            beam width on the bottom layer (at least k)
+	 * @return neighbors with their external IDs, most similar first
+	 */
+	public List<Neighbor> search(float[] query, int k, int efSearch) {
+		return search(query, k, efSearch, -Float.MAX_VALUE);
+	}
+
+	/**
+	 * Find the approximate k nearest neighbors of the query which are at least as
+	 * similar as the given minimum.
+	 *
+	 * @param query
+	 *            unit length query vector
+	 * @param k
+	 *            number of neighbors
+	 * @param efSearch
+	 *            beam width on the bottom layer (at least k)
+	 * @param minSimilarity
+	 *            minimal similarity of a neighbor
+	 * @return neighbors with their external IDs, most similar first
+	 */
+	public List<Neighbor> search(float[] query, int k, int efSearch, double minSimilarity) {
+		if (entryPoint < 0) {
+			return Collections.emptyList();
+		}
+		int current = entryPoint;
+		for (int l = topLayer; l > 0; l--) {
+			current = greedySearch(query, current, l);
+		}
+		List<Neighbor> found = searchLayer(query, current, Math.max(efSearch, k), 0);
+		List<Neighbor> result = new ArrayList<>(Math.min(k, found.size()));
+		for (int i = 0; i < found.size() && i < k && found.get(i).getSimilarity() >= minSimilarity; i++) {
+			result.add(new Neighbor(ids.get(found.get(i).getId()), found.get(i).getSimilarity()));
+		}
+		return result;
+	}
+}
@@ -0,0 +1,29 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+/**
+ * Computes how many characters a search string has in common with many packed
+ * ontology names at once, see {@link CharHistograms}.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+public interface ICharHistogramKernel {
+
+	/**
+	 * For each name in [fromName, toName), sum up the minimum of the query and the
+	 * name count of every bucket.
+	 *
+	 * @param query
+	 *            histogram of the search string ({@link CharHistograms#BUCKETS}
+	 *            counts)
+	 * @param packed
+	 *            packed histograms of the names
+	 * @param fromName
+	 *            first name (inclusive)
+	 * @param toName
+	 *            last name (exclusive)
+	 * @param common
+	 *            output, common[i - fromName] is the common count of name i
+	 */
+	void countCommon(byte[] query, byte[] packed, int fromName, int toName, int[] common);
+}
@@ -0,0 +1,275 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import com.google.common.base.CaseFormat;
+import edu.kit.ipd.pronat.vamos.utils.MathUtils;
+
+import java.util.Arrays;
+
+/**
+ * Jaro Winkler similarity on char arrays, computing exactly the same values as
+ * JaroWinklerSimilarity#apply of commons-text 1.9 (same match window, same
+ * order of the floating point operations): half transpositions divided by 2,
+ * a common prefix of at most 4 chars scaled by 0.1, and 0 without any match.
+ * Only two empty strings differ: they score 0 (JaroWinklerSimilarity returns 1).
+ * The {@link StringOntologyMatcher} compares this similarity with its minimal
+ * score. The match flags are kept in reusable per thread scratch buffers, so a
+ * comparison allocates nothing.
+ *
+ * With a threshold, the comparison stops early if an upper bound of the score
+ * is below it: the number of matches cannot exceed the number of characters the
+ * two arrays have in common, and the common prefix is known before matching.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+public final class JaroWinklerKernel {
+
+	private static final double SCALING_FACTOR = 0.1;
+	private static final int MAX_PREFIX = 4;
+	private static final int ASCII = 128;
+
+	private static final ThreadLocal<JaroWinklerKernel> KERNELS = ThreadLocal.withInitial(JaroWinklerKernel::new);
+
+	private boolean[] matchFlags = new boolean[64];
+	private boolean[] minMatched = new boolean[64];
+	// counts of ASCII chars, all other chars share the last bucket
+	private final int[] charCounts = new int[ASCII + 1];
+	// a search string is scored against many individuals in a row
+	private String lastQuery;
+	private char[] lastQueryChars;
+
+	private JaroWinklerKernel() {
+	}
+
+	/**
+	 * Get the kernel (with its scratch buffers) of the current thread.
+	 *
+	 * @return kernel of the current thread
+	 */
+	public static JaroWinklerKernel get() {
+		return KERNELS.get();
+	}
+
+	/**
+	 * Get the chars of a search string. The chars of the last search string of the
+	 * thread are reused.
+	 *
+	 * @param query
+	 *            search string
+	 * @return chars of the search string (must not be modified)
+	 */
+	public char[] compileQuery(String query) {
+		if (!query.equals(lastQuery)) {
+			lastQuery = query;
+			lastQueryChars = query.toCharArray();
+		}
+		return lastQueryChars;
+	}
+
+	/**
+	 * Split an ontology individual name into the terms the
+	 * {@link StringOntologyMatcher} compares a search string with: the raw dotted
+	 * components (e.g. Dishwasher.Door -> "Dishwasher", "Door"), or the single
+	 * normalized name (e.g. CoffeeMachine1 -> "coffee machine").
+	 *
+	 * @param individualName
+	 *            name of the individual
+	 * @return the terms
+	 */
+	public static char[][] compileTerms(String individualName) {
+		String[] substrings = individualName.split("\\.");
+		if (substrings.length > 1) {
+			char[][] terms = new char[substrings.length][];
+			for (int i = 0; i < substrings.length; i++) {
+				terms[i] = substrings[i].toCharArray();
+			}
+			return terms;
+		}
+
+		String name = CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, individualName);
+		name = name.replace("_", " ") // remove underscores e.g. coffee_machine -> coffee machine
+				.replaceAll("[0-9]", ""); // remove numbers  e.g. move1 -> move
+		return new char[][] { name.toCharArray() };
+	}
+
+	/**
+	 * Score a search string against the terms of an individual: the similarity to
+	 * a single term, or the sum of the similarities to all dotted components
+	 * divided by two.
+	 *
+	 * @param query
+	 *            search string
+	 * @param terms
+	 *            terms from {@link #compileTerms(String)}
+	 * @param threshold
+	 *            scores below this threshold are not needed exactly
+	 * @return the score, or a value below the threshold if the score is below it
+	 */
+	public double score(char[] query, char[][] terms, double threshold) {
+		if (terms.length == 1) {
+			return similarity(query, terms[0], threshold);
+		}
+
+		double bound = 0;
+		for (char[] term : terms) {
+			bound += upperBound(query, term);
+		}
+		if (bound / 2 < threshold - MathUtils.BOUND_SLACK) {
+			return 0D;
+		}
+		double score = 0;
+		for (char[] term : terms) {
+			score += similarity(query, term);
+		}
+		return score / 2;
+	}
+
+	/**
+	 * Jaro Winkler similarity of the two arrays.
+	 *
+	 * @param first
+	 *            first array
+	 * @param second
+	 *            second array
+	 * @return similarity (same as JaroWinklerSimilarity#apply of commons-text 1.9)
+	 */
+	public double similarity(char[] first, char[] second) {
+		return similarity(first, second, Double.NEGATIVE_INFINITY);
+	}
+
+	/**
+	 * Jaro Winkler similarity of the two arrays, computed exactly only if it can
+	 * reach the threshold.
+	 *
+	 * @param first
+	 *            first array
+	 * @param second
+	 *            second array
+	 * @param threshold
+	 *            similarities below this threshold are not needed exactly
+	 * @return similarity, or 0 if it is below the threshold
+	 */
+	public double similarity(char[] first, char[] second, double threshold) {
+		if (threshold > 0 && upperBound(first, second) < threshold - MathUtils.BOUND_SLACK) {
+			return 0D;
+		}
+
+		char[] max;
+		char[] min;
+		if (first.length > second.length) {
+			max = first;
+			min = second;
+		} else {
+			max = second;
+			min = first;
+		}
+
+		if (matchFlags.length < max.length) {
+			matchFlags = new boolean[Math.max(max.length, 2 * matchFlags.length)];
+		}
+		if (minMatched.length < min.length) {
+			minMatched = new boolean[Math.max(min.length, 2 * minMatched.length)];
+		}
+		Arrays.fill(matchFlags, 0, max.length, false);
+
+		int range = Math.max(max.length / 2 - 1, 0);
+		int matches = 0;
+		for (int mi = 0; mi < min.length; mi++) {
+			char c1 = min[mi];
+			minMatched[mi] = false;
+			for (int xi = Math.max(mi - range, 0), xn = Math.min(mi + range + 1, max.length); xi < xn; xi++) {
+				if (!matchFlags[xi] && c1 == max[xi]) {
+					minMatched[mi] = true;
+					matchFlags[xi] = true;
+					matches++;
+					break;
+				}
+			}
+		}
+		if (matches == 0) {
+			return 0D;
+		}
+
+		// compare the matched chars of both arrays in order
+		int halfTranspositions = 0;
+		for (int mi = 0, xi = 0; mi < min.length; mi++) {
+			if (minMatched[mi]) {
+				while (!matchFlags[xi]) {
+					xi++;
+				}
+				if (min[mi] != max[xi]) {
+					halfTranspositions++;
+				}
+				xi++;
+			}
+		}
+
+		return jaroWinkler(matches, halfTranspositions, commonPrefix(first, second), first.length, second.length);
+	}
+
+	/**
+	 * Upper bound of the score of a search string against the terms of an
+	 * individual, given an upper bound of the chars they have in common (e.g. from
+	 * {@link CharHistograms}). Assumes the maximal prefix.
+	 *
+	 * @param common
+	 *            upper bound of the common chars of the search string and all terms
+	 * @param queryLength
+	 *            length of the search string
+	 * @param terms
+	 *            terms from {@link #compileTerms(String)}
+	 * @return upper bound of {@link #score(char[], char[][], double)}
+	 */
+	public static double upperBound(int common, int queryLength, char[][] terms) {
+		double bound = 0;
+		for (char[] term : terms) {
+			int matches = Math.min(common, Math.min(queryLength, term.length));
+			if (matches > 0) {
+				bound += jaroWinkler(matches, 0, MAX_PREFIX, queryLength, term.length);
+			}
+		}
+		return terms.length == 1 ? bound : bound / 2;
+	}
+
+	private static double jaroWinkler(int matches, int halfTranspositions, int prefix, int firstLength, int secondLength) {
+		double m = matches;
+		double j = ((m / firstLength + m / secondLength + (m - (double) halfTranspositions / 2) / m)) / 3;
+		return j < 0.7D ? j : j + SCALING_FACTOR * prefix * (1D - j);
+	}
+
+	private static int commonPrefix(char[] first, char[] second) {
+		int limit = Math.min(MAX_PREFIX, Math.min(first.length, second.length));
+		int prefix = 0;
+		while (prefix < limit && first[prefix] == second[prefix]) {
+			prefix++;
+		}
+		return prefix;
+	}
+
+	/**
+	 * Upper bound of the similarity: at most as many matches as common characters
+	 * and no transpositions.
+	 */
+	private double upperBound(char[] first, char[] second) {
+		for (char c : first) {
+			charCounts[c < ASCII ? c : ASCII]++;
+		}
+		int common = 0;
+		for (char c : second) {
+			int bucket = c < ASCII ? c : ASCII;
+			if (charCounts[bucket] > 0) {
+				charCounts[bucket]--;
+				common++;
+			}
+		}
+		for (char c : first) {
+			charCounts[c < ASCII ? c : ASCII] = 0;
+		}
+
+		common = Math.min(common, Math.min(first.length, second.length));
+		if (common == 0) {
+			return 0D;
+		}
+		return jaroWinkler(common, 0, commonPrefix(first, second), first.length, second.length);
+	}
+}
@@ -0,0 +1,192 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import edu.kit.ipd.parse.luna.tools.ConfigManager;
+import edu.kit.ipd.pronat.vamos.MethodSynthesizer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Token classification for the preprocessing of instruction names and
+ * parameters. Compiled once from the configuration (STOP_WORDS, PARAMETER_POS):
+ * stopwords are kept in an open addressing hash table which can be probed with
+ * a whole String or with a char range of a larger String, the parameter part of
+ * speech tags are kept in a set. Each mapper has its own default stopword for
+ * configurations without STOP_WORDS, so one filter is compiled per default.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+public final class LexicalFilter {
+
+	private static final String DEFAULT_POS_TAG = "NN";
+
+	// compiled filters by default stopword
+	private static final Map<String, LexicalFilter> instances = new HashMap<>();
+
+	private final char[][] stopwordTable;
+	private final int tableMask;
+	private final Set<String> parameterPosTags;
+
+	LexicalFilter(String[] stopWords, String[] parameterPosTags) {
+		int capacity = Integer.highestOneBit(Math.max(stopWords.length, 1) * 4 - 1) << 1;
+		stopwordTable = new char[capacity][];
+		tableMask = capacity - 1;
+		for (String stopWord : stopWords) {
+			addStopword(stopWord);
+		}
+
+		this.parameterPosTags = new HashSet<>(Arrays.asList(parameterPosTags));
+	}
+
+	/**
+	 * Get the filter compiled from the configuration of the
+	 * {@link MethodSynthesizer}. It is built once on first access.
+	 *
+	 * @param defaultStopWord
+	 *            stopword used if no STOP_WORDS are configured
+	 * @return the shared lexical filter with this default stopword
+	 */
+	public static synchronized LexicalFilter getInstance(String defaultStopWord) {
+		return instances.computeIfAbsent(defaultStopWord,
+				stopWord -> fromConfiguration(ConfigManager.getConfiguration(MethodSynthesizer.class), stopWord));
+	}
+
+	static LexicalFilter fromConfiguration(Properties props, String defaultStopWord) {
+		String[] stopWords = splitList(props.getProperty("STOP_WORDS"));
+		String[] posTags = splitList(props.getProperty("PARAMETER_POS"));
+
+		return new LexicalFilter(stopWords.length == 0 ? new String[] { defaultStopWord } : stopWords,
+				posTags.length == 0 ? new String[] { DEFAULT_POS_TAG } : posTags);
+	}
+
+	private static String[] splitList(String property) {
+		if (property == null) {
+			return new String[0];
+		}
+		return Arrays.stream(property.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toArray(String[]::new);
+	}
+
+	private void addStopword(String stopWord) {
+		if (isStopword(stopWord)) {
+			return;
+		}
+		int slot = spread(stopWord.hashCode()) & tableMask;
+		while (stopwordTable[slot] != null) {
+			slot = (slot + 1) & tableMask;
+		}
+		stopwordTable[slot] = stopWord.toCharArray();
+	}
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Check if the given word is one of the configured stopwords (case sensitive).
+	 *
+	 * @param word
+	 *            word to check
+	 * @return true if the word is a stopword
+	 */
+	public boolean isStopword(String word) {
+		return word != null && probe(word, 0, word.length(), word.hashCode());
+	}
+
+	/**
+	 * Check if the char range [start, end) of the given input is one of the
+	 * configured stopwords. No substring is created.
+	 *
+	 * @param input
+	 *            input string
+	 * @param start
+	 *            first index of the token (inclusive)
+	 * @param end
+	 *            last index of the token (exclusive)
+	 * @return true if the token is a stopword
+	 */
+	public boolean isStopword(CharSequence input, int start, int end) {
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + input.charAt(i); // same as String.hashCode()
+		}
+		return probe(input, start, end, hash);
+	}
+
+	private boolean probe(CharSequence input, int start, int end, int hash) {
+		int slot = spread(hash) & tableMask;
+		char[] candidate;
+		while ((candidate = stopwordTable[slot]) != null) {
+			if (regionEquals(candidate, input, start, end)) {
+				return true;
+			}
+			slot = (slot + 1) & tableMask;
+		}
+		return false;
+	}
+
+	private static boolean regionEquals(char[] candidate, CharSequence input, int start, int end) {
+		if (candidate.length != end - start) {
+			return false;
+		}
+		for (int i = 0; i < candidate.length; i++) {
+			if (candidate[i] != input.charAt(start + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Check if the given part of speech tag is one of the configured parameter
+	 * tags.
+	 *
+	 * @param pos
+	 *            part of speech tag, may be null
+	 * @return true if tokens with this tag may be parameters
+	 */
+	public boolean isParameterPos(String pos) {
+		return pos != null && parameterPosTags.contains(pos);
+	}
+
+	/**
+	 * Removes whole stopword tokens from a given string in a single pass. In
+	 * contrast to a plain substring replacement, words containing a stopword (e.g.
+	 * "window" containing "now") are kept. Whitespace is copied unchanged.
+	 *
+	 * @param input
+	 *            string input
+	 * @return cleared string output
+	 */
+	public String removeStopwords(String input) {
+		StringBuilder result = null;
+		int length = input.length();
+		int tokenStart = 0;
+		for (int i = 0; i <= length; i++) {
+			if (i < length && !Character.isWhitespace(input.charAt(i))) {
+				continue;
+			}
+
+			if (tokenStart < i && isStopword(input, tokenStart, i)) {
+				if (result == null) {
+					result = new StringBuilder(length);
+					result.append(input, 0, tokenStart);
+				}
+			} else if (result != null) {
+				result.append(input, tokenStart, i);
+			}
+
+			if (i < length) {
+				if (result != null) {
+					result.append(input.charAt(i));
+				}
+				tokenStart = i + 1;
+			}
+		}
+		return result == null ? input : result.toString();
+	}
+}
@@ -0,0 +1,171 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Scratch structures for the mapping of one command, reused instead of
+ * allocating them per instruction: pooled lists, maps and sets as well as the
+ * scored function calls and the top N selector of the
+ * {@link FunctionCallScorer}. A stage takes the pooled structures it needs
+ * between {@link #enter()} and {@link #exit()}; they are handed out again after
+ * the exit. {@link #reset()} releases everything at the end of the mapping.
+ * Each thread keeps its arena across mappings (see {@link #forCurrentThread()}).
+ * Released structures are cleared, so the arena does not keep the methods and
+ * parameters of the last mapping alive, and at most {@link #MAX_POOLED}
+ * structures of each kind are kept for the next mapping.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+final class MappingArena {
+
+	// pooled structures of each kind kept across mappings
+	static final int MAX_POOLED = 32;
+
+	private static final ThreadLocal<MappingArena> arenas = ThreadLocal.withInitial(MappingArena::new);
+
+	private final List<List<Object>> lists = new ArrayList<>();
+	private final List<Map<Object, Object>> maps = new ArrayList<>();
+	private final List<Set<Object>> sets = new ArrayList<>();
+	private int usedLists;
+	private int usedMaps;
+	private int usedSets;
+
+	// numbers of used structures at each enter, 3 per level
+	private int[] scopes = new int[3 * 4];
+	private int depth;
+
+	private final ScoredFunctionCalls scoredCalls = new ScoredFunctionCalls();
+	private TopNSelector selector;
+
+	/**
+	 * Get the arena of the current thread.
+	 *
+	 * @return arena, reused by all mappings on this thread
+	 */
+	static MappingArena forCurrentThread() {
+		return arenas.get();
+	}
+
+	/**
+	 * Start using pooled structures.
+	 */
+	void enter() {
+		if (3 * depth + 3 > scopes.length) {
+			scopes = Arrays.copyOf(scopes, 2 * scopes.length);
+		}
+		scopes[3 * depth] = usedLists;
+		scopes[3 * depth + 1] = usedMaps;
+		scopes[3 * depth + 2] = usedSets;
+		depth++;
+	}
+
+	/**
+	 * Release (and clear) the structures taken since the matching
+	 * {@link #enter()}.
+	 */
+	void exit() {
+		depth--;
+		release(scopes[3 * depth], scopes[3 * depth + 1], scopes[3 * depth + 2]);
+	}
+
+	/**
+	 * Release (and clear) all structures and drop the pooled structures beyond
+	 * {@link #MAX_POOLED}.
+	 */
+	void reset() {
+		release(0, 0, 0);
+		depth = 0;
+		trim(lists);
+		trim(maps);
+		trim(sets);
+		scoredCalls.clear();
+	}
+
+	/**
+	 * Get the number of pooled structures, used or not.
+	 *
+	 * @return number of pooled lists, maps and sets
+	 */
+	int getPooledCount() {
+		return lists.size() + maps.size() + sets.size();
+	}
+
+	@SuppressWarnings("unchecked")
+	<T> List<T> list() {
+		if (usedLists == lists.size()) {
+			lists.add(new ArrayList<>());
+		}
+		return (List<T>) lists.get(usedLists++);
+	}
+
+	@SuppressWarnings("unchecked")
+	<K, V> Map<K, V> map() {
+		if (usedMaps == maps.size()) {
+			maps.add(new HashMap<>());
+		}
+		return (Map<K, V>) maps.get(usedMaps++);
+	}
+
+	@SuppressWarnings("unchecked")
+	<T> Set<T> set() {
+		if (usedSets == sets.size()) {
+			sets.add(new HashSet<>());
+		}
+		return (Set<T>) sets.get(usedSets++);
+	}
+
+	/**
+	 * Get the empty scored function calls; only one stage may use them at a time.
+	 *
+	 * @return scored function calls
+	 */
+	ScoredFunctionCalls scoredCalls() {
+		scoredCalls.clear();
+		return scoredCalls;
+	}
+
+	/**
+	 * Get the empty top N selector; only one stage may use it at a time.
+	 *
+	 * @param n
+	 *            number of items to select
+	 * @return selector
+	 */
+	TopNSelector selector(int n) {
+		if (selector == null || selector.getCapacity() < n) {
+			selector = new TopNSelector(n);
+		} else {
+			selector.reset(n);
+		}
+		return selector;
+	}
+
+	// clear the used structures beyond the given numbers and hand them out again
+	private void release(int toLists, int toMaps, int toSets) {
+		for (int i = toLists; i < usedLists; i++) {
+			lists.get(i).clear();
+		}
+		for (int i = toMaps; i < usedMaps; i++) {
+			maps.get(i).clear();
+		}
+		for (int i = toSets; i < usedSets; i++) {
+			sets.get(i).clear();
+		}
+		usedLists = toLists;
+		usedMaps = toMaps;
+		usedSets = toSets;
+	}
+
+	private static void trim(List<?> pool) {
+		if (pool.size() > MAX_POOLED) {
+			pool.subList(MAX_POOLED, pool.size()).clear();
+		}
+	}
+}
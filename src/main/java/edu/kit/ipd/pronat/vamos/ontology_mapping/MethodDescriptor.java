@@ -0,0 +1,173 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import edu.kit.ipd.parse.ontology_connection.method.IMethod;
+import edu.kit.ipd.parse.ontology_connection.parameter.IParameter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Signature of an ontology method compiled once with the {@link OntologyIndex}:
+ * its parameters with the IDs and kinds of their datatypes, the number of
+ * parameters without ontology representation, the class of methods declared as
+ * same individuals and the group of methods with the same arity and datatype
+ * kinds (signature ID).
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+final class MethodDescriptor {
+
+	private final IMethod method;
+	private final IParameter[] parameters;
+	private final int[] dataTypeIds;
+	private final DataTypeKind[] kinds;
+	private final int[] kindCounts;
+	private final int primitiveCount;
+	private final int sameIndividualsClass;
+	private final int signatureId;
+
+	/**
+	 * Compile the signature of a method.
+	 *
+	 * @param method
+	 *            ontology method
+	 * @param typedObjectTypes
+	 *            types of the typed objects of the ontology
+	 * @param sameIndividualsClass
+	 *            class ID of the method, -1 if it is not indexed
+	 * @param ids
+	 *            IDs of the datatypes by name, new datatypes get the next free
+	 *            ID; null to leave the datatypes without ID (-1)
+	 * @param signatureIds
+	 *            IDs of the signatures (datatype kind counts), new signatures get
+	 *            the next free ID; null to leave the method without signature ID
+	 *            (-1)
+	 */
+	MethodDescriptor(IMethod method, Set<String> typedObjectTypes, int sameIndividualsClass, Map<String, Integer> ids,
+			Map<List<Integer>, Integer> signatureIds) {
+		this.method = method;
+		this.sameIndividualsClass = sameIndividualsClass;
+		// same iteration order as the parameter set of the method
+		parameters = method.getParameters().toArray(new IParameter[0]);
+		dataTypeIds = new int[parameters.length];
+		kinds = new DataTypeKind[parameters.length];
+		kindCounts = new int[DataTypeKind.values().length];
+		int primitives = 0;
+		for (int i = 0; i < parameters.length; i++) {
+			dataTypeIds[i] = ids != null ? ids.computeIfAbsent(parameters[i].getDataType().getName(), n -> ids.size()) : -1;
+			kinds[i] = DataTypeKind.of(parameters[i].getDataType(), typedObjectTypes);
+			kindCounts[kinds[i].ordinal()]++;
+			if (kinds[i].isWithoutOntologyRepresentation()) {
+				primitives++;
+			}
+		}
+		primitiveCount = primitives;
+		if (signatureIds != null) {
+			List<Integer> signature = new ArrayList<>();
+			for (int count : kindCounts) {
+				signature.add(count);
+			}
+			signatureId = signatureIds.computeIfAbsent(signature, k -> signatureIds.size());
+		} else {
+			signatureId = -1;
+		}
+	}
+
+	IMethod getMethod() {
+		return method;
+	}
+
+	/**
+	 * Get the parameters of the method.
+	 *
+	 * @return parameters (must not be modified)
+	 */
+	IParameter[] getParameters() {
+		return parameters;
+	}
+
+	int getParameterCount() {
+		return parameters.length;
+	}
+
+	/**
+	 * Get the position of a parameter in the signature.
+	 *
+	 * @param parameter
+	 *            parameter of the method
+	 * @return position, or -1 if it is no parameter of the method
+	 */
+	int indexOf(IParameter parameter) {
+		for (int i = 0; i < parameters.length; i++) {
+			if (parameters[i] == parameter) {
+				return i;
+			}
+		}
+		for (int i = 0; i < parameters.length; i++) {
+			if (parameters[i].equals(parameter)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Get the ID of the datatype of a parameter, unique among the datatype names
+	 * of all indexed methods.
+	 *
+	 * @param i
+	 *            position of the parameter
+	 * @return ID, or -1 if the method is not indexed
+	 */
+	int getDataTypeId(int i) {
+		return dataTypeIds[i];
+	}
+
+	DataTypeKind getKind(int i) {
+		return kinds[i];
+	}
+
+	/**
+	 * Get the number of parameters with a datatype of the given kind.
+	 *
+	 * @param kind
+	 *            datatype kind
+	 * @return number of parameters
+	 */
+	int getKindCount(DataTypeKind kind) {
+		return kindCounts[kind.ordinal()];
+	}
+
+	/**
+	 * Get the ID of the signature of the method: methods with the same number of
+	 * parameters of each datatype kind (and thus the same arity) share it.
+	 *
+	 * @return signature ID, or -1 if the method is not indexed
+	 */
+	int getSignatureId() {
+		return signatureId;
+	}
+
+	/**
+	 * Get the number of parameters whose datatype has no ontology representation
+	 * (e.g. String or int).
+	 *
+	 * @return number of primitive parameters
+	 */
+	int getPrimitiveCount() {
+		return primitiveCount;
+	}
+
+	/**
+	 * Get the ID of the class of methods declared as same individuals (directly or
+	 * transitively): the smallest {@link OntologyIndex} ID in the class.
+	 *
+	 * @return class ID, or -1 if the method is not indexed
+	 */
+	int getSameIndividualsClass() {
+		return sameIndividualsClass;
+	}
+}
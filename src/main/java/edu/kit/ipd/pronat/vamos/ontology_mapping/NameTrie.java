@@ -0,0 +1,216 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import java.util.*;
+
+/**
+ * Compact, immutable trie over normalized ontology names. The nodes are stored
+ * in breadth first order in parallel arrays; the children of a node are
+ * contiguous and sorted by their character, so a child lookup is a binary
+ * search. Every key maps to the IDs of the {@link OntologyIndex} individuals it
+ * was built from.
+ *
+ * Besides exact and prefix lookups, the trie answers bounded edit distance
+ * queries: the Levenshtein automaton of the search string is simulated by one
+ * dynamic programming row per trie depth, and subtrees are pruned as soon as no
+ * state of the automaton is within the distance bound anymore.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+public final class NameTrie {
+
+	private final char[] labels;
+	private final int[] firstChild;
+	private final int[] childCount;
+	private final int[] valuesStart;
+	private final int[] valuesEnd;
+	private final int[] values;
+	private final int maxDepth;
+
+	private static final class BuildNode {
+		private final TreeMap<Character, BuildNode> children = new TreeMap<>();
+		private int[] ids;
+	}
+
+	/**
+	 * Build the trie.
+	 *
+	 * @param keys
+	 *            map of normalized keys to the IDs of their individuals
+	 */
+	NameTrie(Map<String, int[]> keys) {
+		BuildNode root = new BuildNode();
+		int depth = 0;
+		int numNodes = 1;
+		int numValues = 0;
+		for (Map.Entry<String, int[]> entry : keys.entrySet()) {
+			BuildNode node = root;
+			for (char c : entry.getKey().toCharArray()) {
+				BuildNode child = node.children.get(c);
+				if (child == null) {
+					child = new BuildNode();
+					node.children.put(c, child);
+					numNodes++;
+				}
+				node = child;
+			}
+			node.ids = entry.getValue();
+			numValues += entry.getValue().length;
+			depth = Math.max(depth, entry.getKey().length());
+		}
+		maxDepth = depth;
+
+		labels = new char[numNodes];
+		firstChild = new int[numNodes];
+		childCount = new int[numNodes];
+		valuesStart = new int[numNodes];
+		valuesEnd = new int[numNodes];
+		values = new int[numValues];
+
+		// flatten breadth first: the children of each node get contiguous positions
+		List<BuildNode> queue = new ArrayList<>(numNodes);
+		queue.add(root);
+		int valuePos = 0;
+		for (int pos = 0; pos < queue.size(); pos++) {
+			BuildNode node = queue.get(pos);
+			firstChild[pos] = queue.size();
+			childCount[pos] = node.children.size();
+			for (Map.Entry<Character, BuildNode> child : node.children.entrySet()) {
+				labels[queue.size()] = child.getKey();
+				queue.add(child.getValue());
+			}
+
+			valuesStart[pos] = valuePos;
+			if (node.ids != null) {
+				System.arraycopy(node.ids, 0, values, valuePos, node.ids.length);
+				valuePos += node.ids.length;
+			}
+			valuesEnd[pos] = valuePos;
+		}
+	}
+
+	private int findChild(int node, char c) {
+		int low = firstChild[node];
+		int high = low + childCount[node] - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (labels[mid] < c) {
+				low = mid + 1;
+			} else if (labels[mid] > c) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	private int findNode(String key) {
+		int node = 0;
+		for (int i = 0; i < key.length() && node >= 0; i++) {
+			node = findChild(node, key.charAt(i));
+		}
+		return node;
+	}
+
+	private void addValues(int node, BitSet result) {
+		for (int i = valuesStart[node]; i < valuesEnd[node]; i++) {
+			result.set(values[i]);
+		}
+	}
+
+	/**
+	 * Get the IDs of the given key.
+	 *
+	 * @param key
+	 *            normalized key
+	 * @param result
+	 *            bitset the IDs are added to
+	 */
+	void findExact(String key, BitSet result) {
+		int node = findNode(key);
+		if (node >= 0) {
+			addValues(node, result);
+		}
+	}
+
+	/**
+	 * Get the IDs of all keys starting with the given prefix.
+	 *
+	 * @param prefix
+	 *            normalized prefix
+	 * @param result
+	 *            bitset the IDs are added to
+	 */
+	void findPrefix(String prefix, BitSet result) {
+		int node = findNode(prefix);
+		if (node < 0) {
+			return;
+		}
+
+		// the subtree of a node is not contiguous in breadth first order -> walk it
+		Deque<Integer> stack = new ArrayDeque<>();
+		stack.push(node);
+		while (!stack.isEmpty()) {
+			int current = stack.pop();
+			addValues(current, result);
+			for (int child = firstChild[current]; child < firstChild[current] + childCount[current]; child++) {
+				stack.push(child);
+			}
+		}
+	}
+
+	/**
+	 * Get the IDs of all keys within the given Levenshtein distance of the search
+	 * string.
+	 *
+	 * @param query
+	 *            normalized search string
+	 * @param maxDistance
+	 *            maximal number of insertions, deletions and substitutions
+	 * @param result
+	 *            bitset the IDs are added to
+	 */
+	void findWithinDistance(String query, int maxDistance, BitSet result) {
+		int length = query.length();
+		int[][] rows = new int[Math.min(maxDepth, length + maxDistance) + 1][length + 1];
+		for (int i = 0; i <= length; i++) {
+			rows[0][i] = i;
+		}
+		if (length <= maxDistance) {
+			addValues(0, result);
+		}
+
+		for (int child = firstChild[0]; child < firstChild[0] + childCount[0]; child++) {
+			searchWithinDistance(child, 1, query, maxDistance, rows, result);
+		}
+	}
+
+	private void searchWithinDistance(int node, int depth, String query, int maxDistance, int[][] rows, BitSet result) {
+		if (depth >= rows.length) {
+			return; // keys this long are too far away anyway
+		}
+		int[] previous = rows[depth - 1];
+		int[] row = rows[depth];
+		char c = labels[node];
+
+		row[0] = previous[0] + 1;
+		int rowMin = row[0];
+		for (int i = 1; i < row.length; i++) {
+			int substitution = previous[i - 1] + (query.charAt(i - 1) == c ? 0 : 1);
+			row[i] = Math.min(Math.min(row[i - 1] + 1, previous[i] + 1), substitution);
+			rowMin = Math.min(rowMin, row[i]);
+		}
+
+		if (row[row.length - 1] <= maxDistance) {
+			addValues(node, result);
+		}
+		if (rowMin > maxDistance) {
+			return; // no state of the automaton can reach an accepting state anymore
+		}
+
+		for (int child = firstChild[node]; child < firstChild[node] + childCount[node]; child++) {
+			searchWithinDistance(child, depth + 1, query, maxDistance, rows, result);
+		}
+	}
+}
@@ -0,0 +1,532 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import com.google.common.base.CaseFormat;
+import edu.kit.ipd.parse.ontology_connection.Domain;
+import edu.kit.ipd.parse.ontology_connection.IDomain;
+import edu.kit.ipd.parse.ontology_connection.IIndividual;
+import edu.kit.ipd.parse.ontology_connection.method.IMethod;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Index over the individuals of the connected ontology that can be matched by
+ * the {@link StringOntologyMatcher}: methods, objects, values and states. Every
+ * individual gets a dense int ID (methods first, then objects, values and
+ * states). The normalized names (e.g. Dishwasher.Door -> "dishwasher door") and
+ * their dotted components ("dishwasher", "door") are hashed for exact lookup,
+ * together with their one-character deletions for a small edit distance 1
+ * neighborhood. The individuals a parameter can be matched with (objects,
+ * values and states without the typed object types) and their score factors
+ * are flagged once as well, and the signatures of the methods are compiled
+ * into {@link MethodDescriptor}s. The datatypes of the parameter individuals
+ * are indexed in a {@link ParameterTypeIndex}, the classes of same individual
+ * methods in {@link SameIndividualsClasses}, and checked datatype
+ * compatibilities are kept in {@link DataTypeCompatibilities}. The index is
+ * built once on first access.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+public final class OntologyIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(OntologyIndex.class);
+	private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+	private static final int[] NO_IDS = new int[0];
+	// shorter keys have too many unrelated neighbors
+	private static final int MIN_NEIGHBORHOOD_LENGTH = 4;
+	private static final String PERSON_PLACEHOLDER = "Person";
+
+	private static OntologyIndex instance;
+
+	private final IIndividual[] individuals;
+	private final String[] normalizedNames;
+	private final char[][][] jaroWinklerTerms;
+	private final char[][] fuzzyTerms;
+	private final int[] fuzzyTermLengths;
+	private final byte[] charHistograms;
+	private final BitSet withoutHistogram;
+	private final BitSet parameterIds;
+	private final double[] scoreFactors;
+	private final ParameterTypeIndex types;
+	private final MethodDescriptor[] methodDescriptors;
+	private final int numSignatures;
+	private final DataTypeCompatibilities compatibilities;
+	private final int numMethods;
+	private final int numObjects;
+	private final int numValues;
+	private final Map<IIndividual, Integer> ids;
+	private final Map<String, int[]> exactKeys;
+	private final Map<String, int[]> deletionKeys;
+	private final NameTrie nameTrie;
+	// built on first use, only needed for phonetic candidates
+	private PhoneticIndex phoneticIndex;
+
+	private OntologyIndex(IDomain domain) {
+		List<IIndividual> all = new ArrayList<>();
+		addAll(all, domain.getMethods());
+		numMethods = all.size();
+		addAll(all, domain.getObjects());
+		numObjects = all.size() - numMethods;
+		addAll(all, domain.getValues());
+		numValues = all.size() - numMethods - numObjects;
+		addAll(all, domain.getStates());
+
+		individuals = all.toArray(new IIndividual[0]);
+		normalizedNames = new String[individuals.length];
+		jaroWinklerTerms = new char[individuals.length][][];
+		fuzzyTerms = new char[individuals.length][];
+		fuzzyTermLengths = new int[individuals.length];
+		charHistograms = new byte[individuals.length * CharHistograms.BUCKETS];
+		withoutHistogram = new BitSet(individuals.length);
+		parameterIds = new BitSet(individuals.length);
+		scoreFactors = new double[individuals.length];
+		ids = new HashMap<>();
+		Set<String> typedObjectTypes = new HashSet<>(domain.getTypedObjects().getTypes());
+
+		Map<String, Set<Integer>> exact = new HashMap<>();
+		Map<String, Set<Integer>> deletions = new HashMap<>();
+		Map<String, Set<Integer>> words = new HashMap<>();
+		for (int id = 0; id < individuals.length; id++) {
+			ids.put(individuals[id], id);
+			String name = individuals[id].getName();
+			normalizedNames[id] = normalizeName(name);
+			jaroWinklerTerms[id] = JaroWinklerKernel.compileTerms(name);
+			String fuzzyTerm = FuzzyScoreKernel.normalizeTerm(name);
+			fuzzyTerms[id] = FuzzyScoreKernel.lowerCase(fuzzyTerm);
+			fuzzyTermLengths[id] = fuzzyTerm.length();
+			if (name.length() <= CharHistograms.MAX_LENGTH && fuzzyTerms[id].length <= CharHistograms.MAX_LENGTH) {
+				CharHistograms.maxInto(charHistograms, id * CharHistograms.BUCKETS, jaroWinklerTerms[id]);
+				CharHistograms.maxInto(charHistograms, id * CharHistograms.BUCKETS, fuzzyTerms[id]);
+			} else {
+				withoutHistogram.set(id);
+			}
+			// skip typedobjects as IValue e.g. (Drinkable)
+			if (!isMethod(id) && !(isValue(id) && typedObjectTypes.contains(name))) {
+				parameterIds.set(id);
+			}
+			// special case for placeholder Person
+			scoreFactors[id] = isObject(id) && name.equals(PERSON_PLACEHOLDER) ? 0.5 : 1.0;
+
+			Set<String> keys = new LinkedHashSet<>();
+			keys.add(normalizedNames[id]);
+			for (String component : name.split("\\.")) {
+				keys.add(normalizeName(component));
+			}
+
+			for (String key : keys) {
+				if (key.isEmpty()) {
+					continue;
+				}
+				exact.computeIfAbsent(key, k -> new TreeSet<>()).add(id);
+				for (String word : key.split(" ")) {
+					words.computeIfAbsent(word, k -> new TreeSet<>()).add(id);
+				}
+				if (key.length() >= MIN_NEIGHBORHOOD_LENGTH) {
+					for (int i = 0; i < key.length(); i++) {
+						deletions.computeIfAbsent(deleteCharAt(key, i), k -> new TreeSet<>()).add(id);
+					}
+				}
+			}
+		}
+		types = new ParameterTypeIndex(this, typedObjectTypes);
+
+		SameIndividualsClasses sameIndividuals = new SameIndividualsClasses(individuals, numMethods, ids);
+		methodDescriptors = new MethodDescriptor[numMethods];
+		Map<String, Integer> dataTypeIds = new HashMap<>();
+		Map<List<Integer>, Integer> signatureIds = new HashMap<>();
+		for (int id = 0; id < numMethods; id++) {
+			methodDescriptors[id] = new MethodDescriptor((IMethod) individuals[id], typedObjectTypes, sameIndividuals.getClassId(id),
+					dataTypeIds, signatureIds);
+		}
+		numSignatures = signatureIds.size();
+		compatibilities = new DataTypeCompatibilities(individuals.length, dataTypeIds.size());
+
+		exactKeys = toArrays(exact);
+		deletionKeys = toArrays(deletions);
+		words.forEach((word, wordIds) -> exact.merge(word, wordIds, (a, b) -> {
+			a.addAll(b);
+			return a;
+		}));
+		nameTrie = new NameTrie(toArrays(exact));
+
+		logger.info("Built ontology index: {} methods, {} objects, {} values, {} states; {} name keys.", numMethods, numObjects,
+				numValues, individuals.length - numMethods - numObjects - numValues, exactKeys.size());
+	}
+
+	private synchronized PhoneticIndex getPhoneticIndex() {
+		if (phoneticIndex == null) {
+			phoneticIndex = new PhoneticIndex(normalizedNames);
+			logger.info("Built phonetic index: {} phonetic keys.", phoneticIndex.size());
+		}
+		return phoneticIndex;
+	}
+
+	/**
+	 * Get the index of the connected ontology. It is built on first access.
+	 *
+	 * @return the ontology index
+	 */
+	public static synchronized OntologyIndex getInstance() {
+		if (instance == null) {
+			instance = new OntologyIndex(Domain.getInstance());
+		}
+		return instance;
+	}
+
+	private static void addAll(List<IIndividual> all, Collection<? extends IIndividual> members) {
+		Set<IIndividual> seen = new HashSet<>(all);
+		for (IIndividual member : members) {
+			if (seen.add(member)) {
+				all.add(member);
+			}
+		}
+	}
+
+	private static Map<String, int[]> toArrays(Map<String, Set<Integer>> map) {
+		Map<String, int[]> result = new HashMap<>(map.size() * 2);
+		for (Map.Entry<String, Set<Integer>> entry : map.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+		}
+		return result;
+	}
+
+	private static String deleteCharAt(String key, int index) {
+		return new StringBuilder(key.length() - 1).append(key, 0, index).append(key, index + 1, key.length()).toString();
+	}
+
+	/**
+	 * Normalize the name of an ontology individual, e.g. CoffeeMachine1 -> "coffee
+	 * machine", Dishwasher.Door -> "dishwasher door".
+	 *
+	 * @param individualName
+	 *            name of the individual
+	 * @return normalized name
+	 */
+	static String normalizeName(String individualName) {
+		String name = CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, individualName) // Dishwasher.Door -> dishwasher._door
+				.replace(".", " ") // remove dots
+				.replaceAll("[0-9]", ""); // remove numbers  e.g. move1 -> move
+		return normalizeQuery(name);
+	}
+
+	/**
+	 * Normalize a search string the same way as the individual names: lowercase,
+	 * underscores (e.g. of wordnet synonyms like "pick_up") and multiple whitespaces
+	 * become single spaces.
+	 *
+	 * @param query
+	 *            search string
+	 * @return normalized search string
+	 */
+	static String normalizeQuery(String query) {
+		return WHITESPACES.matcher(query.toLowerCase(Locale.ENGLISH).replace('_', ' ')).replaceAll(" ").trim();
+	}
+
+	int size() {
+		return individuals.length;
+	}
+
+	IIndividual getIndividual(int id) {
+		return individuals[id];
+	}
+
+	String getNormalizedName(int id) {
+		return normalizedNames[id];
+	}
+
+	/**
+	 * Get the terms the Jaro Winkler metric compares search strings with, see
+	 * {@link JaroWinklerKernel#compileTerms(String)}.
+	 *
+	 * @param id
+	 *            ID of the individual
+	 * @return the terms (must not be modified)
+	 */
+	char[][] getJaroWinklerTerms(int id) {
+		return jaroWinklerTerms[id];
+	}
+
+	/**
+	 * Get the lowercased term the fuzzy metric compares search strings with, see
+	 * {@link FuzzyScoreKernel#normalizeTerm(String)}.
+	 *
+	 * @param id
+	 *            ID of the individual
+	 * @return lowercased term (must not be modified)
+	 */
+	char[] getFuzzyTerm(int id) {
+		return fuzzyTerms[id];
+	}
+
+	/**
+	 * Get the length of the fuzzy term before lowercasing.
+	 *
+	 * @param id
+	 *            ID of the individual
+	 * @return length of the term
+	 */
+	int getFuzzyTermLength(int id) {
+		return fuzzyTermLengths[id];
+	}
+
+	/**
+	 * Get the packed char histograms of all individuals (covering both the Jaro
+	 * Winkler terms and the fuzzy term), see {@link CharHistograms}.
+	 *
+	 * @return packed histograms (must not be modified)
+	 */
+	byte[] getCharHistograms() {
+		return charHistograms;
+	}
+
+	/**
+	 * Check if the individual has a char histogram (the histograms of very long
+	 * names are left empty).
+	 *
+	 * @param id
+	 *            ID of the individual
+	 * @return true if the histogram of the individual can be used
+	 */
+	boolean hasCharHistogram(int id) {
+		return !withoutHistogram.get(id);
+	}
+
+	/**
+	 * Get the IDs of the individuals a parameter can be matched with: objects,
+	 * values and states, except the values naming a typed object type (e.g.
+	 * Drinkable).
+	 *
+	 * @return bitset of IDs (must not be modified)
+	 */
+	BitSet getParameterIds() {
+		return parameterIds;
+	}
+
+	boolean isParameter(int id) {
+		return parameterIds.get(id);
+	}
+
+	/**
+	 * Get the factor the match scores of the individual are multiplied with: 0.5
+	 * for the placeholder object Person, which matches many references to people,
+	 * 1.0 otherwise.
+	 *
+	 * @param id
+	 *            ID of the individual
+	 * @return score factor
+	 */
+	double getScoreFactor(int id) {
+		return scoreFactors[id];
+	}
+
+	/**
+	 * Get the compiled signature of the given method.
+	 *
+	 * @param method
+	 *            ontology method
+	 * @return descriptor of the method (compiled on the fly if the method is not
+	 *         indexed)
+	 */
+	MethodDescriptor getMethodDescriptor(IMethod method) {
+		int id = getId(method);
+		if (id >= 0 && isMethod(id)) {
+			return methodDescriptors[id];
+		}
+		return new MethodDescriptor(method, types.getTypedObjectTypes(), -1, null, null);
+	}
+
+	/**
+	 * Get the number of distinct method signatures, see
+	 * {@link MethodDescriptor#getSignatureId()}.
+	 *
+	 * @return number of signatures
+	 */
+	int getNumSignatures() {
+		return numSignatures;
+	}
+
+	/**
+	 * Get the representative of the class of methods declared as same individuals
+	 * (see {@link MethodDescriptor#getSameIndividualsClass()}).
+	 *
+	 * @param method
+	 *            ontology method
+	 * @return method with the class ID, the method itself if it is not indexed
+	 */
+	IMethod getSameIndividualsRepresentative(IMethod method) {
+		int sameIndividualsClass = getMethodDescriptor(method).getSameIndividualsClass();
+		return sameIndividualsClass >= 0 ? (IMethod) individuals[sameIndividualsClass] : method;
+	}
+
+	/**
+	 * Get the datatypes of the parameter individuals.
+	 *
+	 * @return index of the typed object types and datatype values
+	 */
+	ParameterTypeIndex getTypes() {
+		return types;
+	}
+
+	/**
+	 * Get the datatype compatibilities checked so far.
+	 *
+	 * @return compatibilities of parameter individuals and datatypes
+	 */
+	DataTypeCompatibilities getCompatibilities() {
+		return compatibilities;
+	}
+
+	/**
+	 * Get the ID of the given individual.
+	 *
+	 * @param individual
+	 *            ontology individual
+	 * @return ID or -1 if the individual is not indexed
+	 */
+	int getId(IIndividual individual) {
+		Integer id = ids.get(individual);
+		return id == null ? -1 : id;
+	}
+
+	boolean isMethod(int id) {
+		return id < numMethods;
+	}
+
+	boolean isObject(int id) {
+		return id >= numMethods && id < numMethods + numObjects;
+	}
+
+	boolean isValue(int id) {
+		return id >= numMethods + numObjects && id < numMethods + numObjects + numValues;
+	}
+
+	boolean isState(int id) {
+		return id >= numMethods + numObjects + numValues;
+	}
+
+	int getNumMethods() {
+		return numMethods;
+	}
+
+	int getNumObjects() {
+		return numObjects;
+	}
+
+	/**
+	 * Find all individuals whose normalized name or one of its normalized dotted
+	 * components equals the given search string, or is at most one deletion,
+	 * insertion or substitution away from it.
+	 *
+	 * @param query
+	 *            search string
+	 * @return IDs of the found individuals (sorted, no duplicates)
+	 */
+	int[] findNearExact(String query) {
+		String key = normalizeQuery(query);
+		if (key.isEmpty()) {
+			return NO_IDS;
+		}
+
+		BitSet found = new BitSet(individuals.length);
+		addIds(found, exactKeys.get(key));
+		if (key.length() >= MIN_NEIGHBORHOOD_LENGTH - 1) {
+			addIds(found, deletionKeys.get(key)); // one insertion
+		}
+		if (key.length() >= MIN_NEIGHBORHOOD_LENGTH) {
+			for (int i = 0; i < key.length(); i++) {
+				String deleted = deleteCharAt(key, i);
+				addIds(found, exactKeys.get(deleted)); // one deletion
+				addIds(found, deletionKeys.get(deleted)); // one substitution
+			}
+		}
+		return found.stream().toArray();
+	}
+
+	private static void addIds(BitSet found, int[] ids) {
+		if (ids != null) {
+			for (int id : ids) {
+				found.set(id);
+			}
+		}
+	}
+
+	/**
+	 * Find all individuals whose normalized name, one of its dotted components or
+	 * one of its words is within the given Levenshtein distance of the search
+	 * string.
+	 *
+	 * @param query
+	 *            search string
+	 * @param maxDistance
+	 *            maximal edit distance
+	 * @return IDs of the found individuals (sorted, no duplicates)
+	 */
+	int[] findWithinDistance(String query, int maxDistance) {
+		BitSet found = new BitSet(individuals.length);
+		nameTrie.findWithinDistance(normalizeQuery(query), maxDistance, found);
+		return found.stream().toArray();
+	}
+
+	/**
+	 * Find all individuals having a normalized name, dotted component or word
+	 * starting with the given prefix.
+	 *
+	 * @param prefix
+	 *            prefix to search for
+	 * @return IDs of the found individuals (sorted, no duplicates)
+	 */
+	int[] findPrefix(String prefix) {
+		BitSet found = new BitSet(individuals.length);
+		nameTrie.findPrefix(normalizeQuery(prefix), found);
+		return found.stream().toArray();
+	}
+
+	/**
+	 * Find all individuals having a word which sounds like a word of the search
+	 * string (same Double Metaphone code).
+	 *
+	 * @param query
+	 *            search string
+	 * @return IDs of the found individuals (sorted, no duplicates)
+	 */
+	int[] findPhonetic(String query) {
+		BitSet found = new BitSet(individuals.length);
+		getPhoneticIndex().find(normalizeQuery(query), found);
+		return found.stream().toArray();
+	}
+
+	/**
+	 * Generate the candidates a (multi word) search string should be scored
+	 * against: the individuals within the given edit distance of the whole search
+	 * string and of each of its words. The distance for single words is scaled
+	 * down with their length, so that short words like "up" do not match
+	 * everything. Optionally, phonetically similar individuals are added.
+	 *
+	 * @param query
+	 *            search string
+	 * @param maxDistance
+	 *            maximal edit distance
+	 * @param usePhonetic
+	 *            add the individuals found by the phonetic index
+	 * @return candidate IDs as bitset
+	 */
+	BitSet findCandidates(String query, int maxDistance, boolean usePhonetic) {
+		String key = normalizeQuery(query);
+		BitSet found = new BitSet(individuals.length);
+		nameTrie.findWithinDistance(key, maxDistance, found);
+		if (usePhonetic) {
+			getPhoneticIndex().find(key, found);
+		}
+
+		String[] queryWords = key.split(" ");
+		if (queryWords.length > 1) {
+			for (String word : queryWords) {
+				nameTrie.findWithinDistance(word, Math.min(maxDistance, word.length() / 3), found);
+			}
+		}
+		return found;
+	}
+}
@@ -5,6 +5,7 @@ import edu.kit.ipd.parse.luna.tools.ConfigManager;
 import edu.kit.ipd.pronat.vamos.MethodSynthesizer;
 import edu.kit.ipd.pronat.vamos.command_representation.*;
 import edu.kit.ipd.pronat.vamos.programm_representation.*;
+import edu.kit.ipd.pronat.vamos.utils.GraphTypeRegistry;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.text.WordUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -29,20 +30,24 @@ public class OntologyMapper {
 	private static FunctionCallFinder functionCallFinder;
 	private static int topNcandidates;
 
-	public OntologyMapper(boolean useContext) {
+	public OntologyMapper(boolean useContext, GraphTypeRegistry graphTypes) {
 		Properties props = ConfigManager.getConfiguration(MethodSynthesizer.class);
 		topNcandidates = Integer.parseInt(props.getProperty("TOP_N"));
 		logger.info("Read in configuration for TOP_N: return top{} function call candidates.", topNcandidates);
+		int maxSynonyms = Integer.parseInt(props.getProperty("MAX_SYNONYMS_PER_NODE", "20"));
 
-		nameMapper = new FunctionNameMapper(useContext);
-		paramMapper = new FunctionParameterMapper(useContext);
+		ContextSynonymCache synonymCache = new ContextSynonymCache(maxSynonyms);
+		nameMapper = new FunctionNameMapper(useContext, graphTypes, synonymCache);
+		paramMapper = new FunctionParameterMapper(useContext, graphTypes, synonymCache);
 		functionCallFinder = new FunctionCallFinder();
 		functionCallScorer = new FunctionCallScorer();
 	}
 
 	/**
 	 * Main method to build the Command datastructure with internal mapping of the
-	 * extracted elements (method names & parameters) to ontology individuals.
+	 * extracted elements (method names & parameters) to ontology individuals. The
+	 * scratch structures of the mapping stages are reused from the arena of the
+	 * current thread and released at the end.
 	 *
 	 * @param cmd
 	 *            Execution or TeachingCommand
@@ -50,21 +55,29 @@ public class OntologyMapper {
 	 */
 	public CommandCandidate findCommandMappingToAPI(AbstractCommand cmd) {
 		logger.info(cmd.getClass() + " found. Try to map it to the API");
+		MappingArena arena = MappingArena.forCurrentThread();
+		try {
+			return findCommandMappingToAPI(cmd, arena);
+		} finally {
+			arena.reset();
+		}
+	}
 
+	private CommandCandidate findCommandMappingToAPI(AbstractCommand cmd, MappingArena arena) {
 		if (cmd.getClass().equals(TeachingCommand.class)) {
 			TeachingCommand ts = (TeachingCommand) cmd;
 
 			// method head: add declarations
-			MethodSignatureCandidate methodSignature = buildMethodSignature(ts.getDeclarationInstructions());
+			MethodSignatureCandidate methodSignature = buildMethodSignature(ts.getDeclarationInstructions(), arena);
 			// todo do sth with ELSE-Block? (e.g. add as decl-synonym?)
 
 			// method body: map to script of descriptions  (for both TeachingCommand AND ExecutionCommand)
-			List<List<FunctionCallCandidate>> script = buildScriptOfFunctionCalls(cmd.getDescriptionInstructions());
+			List<List<FunctionCallCandidate>> script = buildScriptOfFunctionCalls(cmd.getDescriptionInstructions(), arena);
 			return new CommandCandidate(methodSignature, script);
 
 		} else {
 			// method body: map to script of descriptions  (for both TeachingCommand AND ExecutionCommand)
-			List<List<FunctionCallCandidate>> script = buildScriptOfFunctionCalls(cmd.getDescriptionInstructions());
+			List<List<FunctionCallCandidate>> script = buildScriptOfFunctionCalls(cmd.getDescriptionInstructions(), arena);
 
 			return new CommandCandidate(script);
 		}
@@ -77,9 +90,11 @@ public class OntologyMapper {
 	 *
 	 * @param declarationInstructions
 	 *            instructions of the declaration {@link DeclarationInstruction}
+	 * @param arena
+	 *            scratch structures of the current mapping
 	 * @return 1 instruction paired with the best function call candidate
 	 */
-	private MethodSignatureCandidate buildMethodSignature(List<DeclarationInstruction> declarationInstructions) {
+	private MethodSignatureCandidate buildMethodSignature(List<DeclarationInstruction> declarationInstructions, MappingArena arena) {
 		logger.info("Build function signature for method head.");
 
 		// clear instructions from stopwords / unnecessary instructions
@@ -118,7 +133,7 @@ public class OntologyMapper {
 		StringBuilder methodNameBuilder = new StringBuilder(methodName);
 
 		// check if this function name already exists: if higher than 0.95f, the function may already be defined
-		checkIfMethodExists(methodNameBuilder, functionNameMatches, functionParameterMatches);
+		checkIfMethodExists(methodNameBuilder, functionNameMatches, functionParameterMatches, arena);
 
 		// try to map the parameters and add them to the method signature
 		ImmutablePair<String, List<FunctionParameterCandidate>> signature = createMethodNameAndParameters(dclI, methodNameBuilder,
@@ -136,9 +151,12 @@ public class OntologyMapper {
 	 *
 	 * @param descriptionInstructions
 	 *            instructions of the description {@link DescriptionInstruction}
+	 * @param arena
+	 *            scratch structures of the current mapping
 	 * @return each instruction paired with the best function call candidate
 	 */
-	private List<List<FunctionCallCandidate>> buildScriptOfFunctionCalls(List<DescriptionInstruction> descriptionInstructions) {
+	private List<List<FunctionCallCandidate>> buildScriptOfFunctionCalls(List<DescriptionInstruction> descriptionInstructions,
+			MappingArena arena) {
 		logger.info("Build script of function calls for method body.");
 		List<List<FunctionCallCandidate>> functionCalls = new ArrayList<>();
 
@@ -156,17 +174,17 @@ public class OntologyMapper {
 			// find instruction name mappings in ontology
 			List<FunctionNameCandidate> functionNameMatches = nameMapper.findFunctionNameCandidates(dscI);
 
-			// find instruction parameter mappings in ontology
+			// find instruction parameter mappings in ontology (if enabled, only individuals fitting the name candidates)
 			List<List<FunctionParameterCandidate>> functionParameterMatches = paramMapper
-					.findFunctionParameterCandidates(dscI.getClearedInstructionParameters());
+					.findFunctionParameterCandidates(dscI.getClearedInstructionParameters(), functionNameMatches);
 
 			// calculate combined score of instruction name and parameter ontology matches
 			List<FunctionCallCandidate> functionCallCandidates = functionCallFinder.findFunctionCallCandidates(functionNameMatches,
-					functionParameterMatches);
+					functionParameterMatches, topNcandidates, arena);
 
 			// score each candidate and add the best scored candidate
-			List<FunctionCallCandidate> scoredCandidates = functionCallScorer.calculateCombinedScores(functionCallCandidates);
-			List<FunctionCallCandidate> topNCandidates = functionCallScorer.getTopNCandidates(scoredCandidates, topNcandidates);
+			List<FunctionCallCandidate> topNCandidates = functionCallScorer.getTopNScoredCandidates(functionCallCandidates,
+					topNcandidates, arena);
 			if (!topNCandidates.isEmpty()) {
 				logger.debug("Successfully mapped DESCRIPTION instruction '{}' to highest scored function call '{}'.", dscI.toString(),
 						topNCandidates.get(0).toString());
@@ -198,21 +216,20 @@ public class OntologyMapper {
 	 *            function name cndidates
 	 * @param functionParameterMatches
 	 *            function parameter candidates
+	 * @param arena
+	 *            scratch structures of the current mapping
 	 */
 	private void checkIfMethodExists(StringBuilder methodName, List<FunctionNameCandidate> functionNameMatches,
-			List<List<FunctionParameterCandidate>> functionParameterMatches) {
+			List<List<FunctionParameterCandidate>> functionParameterMatches, MappingArena arena) {
 		List<FunctionNameCandidate> similarMethodNames = functionNameMatches.stream().filter(c -> c.getSimilarityScore() >= 0.95)
 				.collect(Collectors.toList());
 		if (!similarMethodNames.isEmpty()) {
 
-			// check if the method with the given parameters already exists
+			// check if the method with the given parameters already exists (stop at the first match)
 			List<FunctionCallCandidate> functionCallCandidates = functionCallFinder.findFunctionCallCandidates(similarMethodNames,
-					functionParameterMatches);
-			List<FunctionCallCandidate> scoredCandidates = functionCallScorer.calculateCombinedScores(functionCallCandidates);
-			if (scoredCandidates.stream().anyMatch(candidate -> candidate.getFunctionCallScore() >= 0.9)) {
-				FunctionCallCandidate existingMethod = scoredCandidates.stream()
-						.filter(candidate -> candidate.getFunctionCallScore() >= 0.9).collect(Collectors.toList()).get(0);
-
+					functionParameterMatches, 0, arena);
+			FunctionCallCandidate existingMethod = functionCallScorer.findFirstScoredCandidate(functionCallCandidates, 0.9, arena);
+			if (existingMethod != null) {
 				methodName.insert(0, "NAMECONFLICT_");
 				logger.error(
 						"Conflict with the extracted method name: it already exists in the ontology in function '{}' with the given parameters. Added prefix 'NAMECONFLICT_'",
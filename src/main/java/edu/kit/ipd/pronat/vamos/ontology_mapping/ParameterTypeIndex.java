@@ -0,0 +1,236 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import edu.kit.ipd.parse.ontology_connection.datatype.IDataType;
+import edu.kit.ipd.parse.ontology_connection.object.IObject;
+import edu.kit.ipd.parse.ontology_connection.value.IValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Datatypes of the parameter individuals of an {@link OntologyIndex}: the typed
+ * object types of each object and the first sub-object per type are indexed as
+ * bitsets and arrays when the index is built, the values of the primitive
+ * datatypes and the individuals compatible with a datatype are collected once
+ * per datatype.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+final class ParameterTypeIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(ParameterTypeIndex.class);
+	private static final String OBJECT_TYPE = "Object";
+
+	private final OntologyIndex index;
+	private final Set<String> typedObjectTypes;
+	private final Map<String, Integer> typeIds;
+	private final String[] typeNames;
+	// typed object type IDs per object (ID minus number of methods)
+	private final BitSet[] objectTypeIds;
+	// first sub-object per typed object type and object with sub-objects (ID minus number of methods)
+	private final IObject[][] subObjectsByType;
+	// value IDs per datatype name, filled on demand
+	private final Map<String, BitSet> dataTypeValueIds = new ConcurrentHashMap<>();
+	// parameter individuals per datatype name, filled on demand
+	private final Map<String, BitSet> compatibleParameterIds = new ConcurrentHashMap<>();
+
+	/**
+	 * Index the typed object types of the objects of the given index.
+	 *
+	 * @param index
+	 *            ontology index with its individuals and parameter IDs
+	 * @param typedObjectTypes
+	 *            types of the typed objects of the ontology
+	 */
+	ParameterTypeIndex(OntologyIndex index, Set<String> typedObjectTypes) {
+		this.index = index;
+		this.typedObjectTypes = typedObjectTypes;
+		typeNames = new TreeSet<>(typedObjectTypes).toArray(new String[0]);
+		typeIds = new HashMap<>();
+		for (int typeId = 0; typeId < typeNames.length; typeId++) {
+			typeIds.put(typeNames[typeId], typeId);
+		}
+
+		int numMethods = index.getNumMethods();
+		objectTypeIds = new BitSet[index.getNumObjects()];
+		subObjectsByType = new IObject[objectTypeIds.length][];
+		for (int i = 0; i < objectTypeIds.length; i++) {
+			IObject object = (IObject) index.getIndividual(numMethods + i);
+			objectTypeIds[i] = new BitSet(typeNames.length);
+			for (String type : object.getTypes()) {
+				Integer typeId = typeIds.get(type);
+				if (typeId != null) {
+					objectTypeIds[i].set(typeId);
+				}
+			}
+		}
+		// the types of all objects are needed for the sub-objects
+		for (int i = 0; i < objectTypeIds.length; i++) {
+			IObject object = (IObject) index.getIndividual(numMethods + i);
+			if (object.hasSubObjects()) {
+				subObjectsByType[i] = findSubObjectsByType(object);
+			}
+		}
+	}
+
+	/**
+	 * Get the types of the typed objects of the ontology.
+	 *
+	 * @return type names (must not be modified)
+	 */
+	Set<String> getTypedObjectTypes() {
+		return typedObjectTypes;
+	}
+
+	/**
+	 * Get the IDs of the parameter individuals which may be passed to an ontology
+	 * parameter of the given datatype, following the rules of
+	 * FunctionCallScorer#checkDataType: all objects for the datatype Object,
+	 * objects (or objects with a sub-object) of the typed object type, the values
+	 * of a primitive datatype and the state of the same name. The IDs are
+	 * collected once per datatype.
+	 *
+	 * @param dataType
+	 *            datatype of an ontology parameter
+	 * @return bitset of IDs (must not be modified)
+	 */
+	BitSet getCompatibleParameterIds(IDataType dataType) {
+		return compatibleParameterIds.computeIfAbsent(dataType.getName(), name -> findCompatibleParameterIds(dataType));
+	}
+
+	private BitSet findCompatibleParameterIds(IDataType dataType) {
+		String typeName = dataType.getName();
+		int typeId = getTypeId(typeName);
+		BitSet parameterIds = index.getParameterIds();
+		BitSet compatible = new BitSet(index.size());
+		for (int id = parameterIds.nextSetBit(0); id >= 0; id = parameterIds.nextSetBit(id + 1)) {
+			if (index.isObject(id)) {
+				if (typeName.equals(OBJECT_TYPE) || (typeId >= 0 && hasTypeOrSubObjectType((IObject) index.getIndividual(id), typeId))) {
+					compatible.set(id);
+				}
+			} else if (index.isState(id) && index.getIndividual(id).getName().equals(typeName)) {
+				compatible.set(id);
+			}
+		}
+		compatible.or(getValueIds(dataType));
+		compatible.and(parameterIds);
+		logger.debug("Indexed {} parameter individuals compatible with datatype '{}'.", compatible.cardinality(), typeName);
+		return compatible;
+	}
+
+	private boolean hasTypeOrSubObjectType(IObject object, int typeId) {
+		return hasType(object, typeId) || getSubObjectOfType(object, typeId) != null;
+	}
+
+	private IObject[] findSubObjectsByType(IObject object) {
+		IObject[] first = new IObject[typeNames.length];
+		for (int typeId = 0; typeId < typeNames.length; typeId++) {
+			first[typeId] = findSubObjectOfType(object, typeId);
+		}
+		return first;
+	}
+
+	private IObject findSubObjectOfType(IObject object, int typeId) {
+		if (object.hasSubObjects()) {
+			for (IObject subObject : object.getSubObjects()) {
+				if (hasType(subObject, typeId)) {
+					return subObject;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get the first sub-object of the object (in the order of its sub-object set)
+	 * having the typed object type, e.g. Microwave.Door of Microwave for
+	 * Openable.
+	 *
+	 * @param object
+	 *            ontology object
+	 * @param typeId
+	 *            ID of the type, see {@link #getTypeId(String)}
+	 * @return sub-object, or null if no sub-object has the type
+	 */
+	IObject getSubObjectOfType(IObject object, int typeId) {
+		int id = index.getId(object);
+		if (id >= 0 && index.isObject(id)) {
+			IObject[] first = subObjectsByType[id - index.getNumMethods()];
+			return first == null ? null : first[typeId];
+		}
+		return findSubObjectOfType(object, typeId);
+	}
+
+	/**
+	 * Get the ID of a typed object type.
+	 *
+	 * @param typeName
+	 *            name of the type, e.g. Openable
+	 * @return ID, or -1 if no typed object has this type
+	 */
+	int getTypeId(String typeName) {
+		Integer typeId = typeIds.get(typeName);
+		return typeId == null ? -1 : typeId;
+	}
+
+	/**
+	 * Check if the object has the typed object type.
+	 *
+	 * @param object
+	 *            ontology object
+	 * @param typeId
+	 *            ID of the type, see {@link #getTypeId(String)}
+	 * @return true if the object has the type
+	 */
+	boolean hasType(IObject object, int typeId) {
+		int id = index.getId(object);
+		if (id >= 0 && index.isObject(id)) {
+			return objectTypeIds[id - index.getNumMethods()].get(typeId);
+		}
+		return object.getTypes().contains(typeNames[typeId]);
+	}
+
+	/**
+	 * Get the IDs of the values of a primitive datatype. The IDs are collected
+	 * once per datatype.
+	 *
+	 * @param dataType
+	 *            datatype of an ontology parameter
+	 * @return bitset of value IDs, empty if the datatype is not primitive (must
+	 *         not be modified)
+	 */
+	BitSet getValueIds(IDataType dataType) {
+		return dataTypeValueIds.computeIfAbsent(dataType.getName(), name -> {
+			BitSet valueIds = new BitSet(index.size());
+			if (dataType.isPrimitive()) {
+				for (IValue value : dataType.getValues()) {
+					int id = index.getId(value);
+					if (id >= 0 && index.isValue(id)) {
+						valueIds.set(id);
+					}
+				}
+			}
+			return valueIds;
+		});
+	}
+
+	/**
+	 * Check if the value is one of the values of a primitive datatype.
+	 *
+	 * @param dataType
+	 *            datatype of an ontology parameter
+	 * @param value
+	 *            ontology value
+	 * @return true if the datatype is primitive and has the value
+	 */
+	boolean hasValue(IDataType dataType, IValue value) {
+		int id = index.getId(value);
+		if (id >= 0 && index.isValue(id)) {
+			return getValueIds(dataType).get(id);
+		}
+		return dataType.isPrimitive() && dataType.getValues().contains(value);
+	}
+}
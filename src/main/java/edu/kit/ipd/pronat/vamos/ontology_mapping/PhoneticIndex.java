@@ -0,0 +1,97 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import org.apache.commons.codec.language.DoubleMetaphone;
+
+import java.util.*;
+
+/**
+ * Phonetic blocking index over the normalized names of the ontology
+ * individuals. Our input is speech, so words are often misrecognized as
+ * homophones (e.g. "cereal" -> "serial"). Every word of a name (and the whole
+ * name without spaces) is put into the buckets of its primary and alternate
+ * Double Metaphone code, so phonetically similar individuals are found with a
+ * single hash lookup per word.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+public final class PhoneticIndex {
+
+	// shorter words have too unspecific codes
+	private static final int MIN_WORD_LENGTH = 3;
+
+	private final DoubleMetaphone doubleMetaphone = new DoubleMetaphone();
+	private final Map<String, int[]> buckets;
+
+	/**
+	 * Build the index.
+	 *
+	 * @param normalizedNames
+	 *            normalized name of every individual, by ID
+	 */
+	PhoneticIndex(String[] normalizedNames) {
+		Map<String, Set<Integer>> codes = new HashMap<>();
+		for (int id = 0; id < normalizedNames.length; id++) {
+			for (String word : getWords(normalizedNames[id])) {
+				for (String code : getCodes(word)) {
+					codes.computeIfAbsent(code, k -> new TreeSet<>()).add(id);
+				}
+			}
+		}
+
+		buckets = new HashMap<>(codes.size() * 2);
+		codes.forEach((code, ids) -> buckets.put(code, ids.stream().mapToInt(Integer::intValue).toArray()));
+	}
+
+	private static List<String> getWords(String normalizedName) {
+		List<String> words = new ArrayList<>();
+		for (String word : normalizedName.split(" ")) {
+			if (word.length() >= MIN_WORD_LENGTH) {
+				words.add(word);
+			}
+		}
+		if (normalizedName.indexOf(' ') >= 0) {
+			words.add(normalizedName.replace(" ", "")); // e.g. "coffee machine" -> "coffeemachine"
+		}
+		return words;
+	}
+
+	private Set<String> getCodes(String word) {
+		Set<String> codes = new HashSet<>(2);
+		String primary = doubleMetaphone.doubleMetaphone(word, false);
+		if (primary != null && !primary.isEmpty()) {
+			codes.add(primary);
+		}
+		String alternate = doubleMetaphone.doubleMetaphone(word, true);
+		if (alternate != null && !alternate.isEmpty()) {
+			codes.add(alternate);
+		}
+		return codes;
+	}
+
+	/**
+	 * Find all individuals having a word that sounds like one of the words of the
+	 * given (normalized) search string.
+	 *
+	 * @param normalizedQuery
+	 *            normalized search string
+	 * @param result
+	 *            bitset the IDs are added to
+	 */
+	void find(String normalizedQuery, BitSet result) {
+		for (String word : getWords(normalizedQuery)) {
+			for (String code : getCodes(word)) {
+				int[] ids = buckets.get(code);
+				if (ids != null) {
+					for (int id : ids) {
+						result.set(id);
+					}
+				}
+			}
+		}
+	}
+
+	int size() {
+		return buckets.size();
+	}
+}
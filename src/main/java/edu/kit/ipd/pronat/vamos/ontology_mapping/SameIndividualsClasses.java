@@ -0,0 +1,77 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import edu.kit.ipd.parse.ontology_connection.IIndividual;
+import edu.kit.ipd.parse.ontology_connection.method.IMethod;
+
+import java.util.Map;
+
+/**
+ * Classes of the ontology methods declared as same individuals, found with a
+ * union-find over the dense method IDs of the {@link OntologyIndex}. The class
+ * ID of a method is the smallest method ID of its class. All paths are
+ * compressed when the classes are built, so lookups only read.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+final class SameIndividualsClasses {
+
+	private final int[] classIds;
+
+	/**
+	 * Build the classes of the methods.
+	 *
+	 * @param individuals
+	 *            indexed individuals, the methods first
+	 * @param numMethods
+	 *            number of methods
+	 * @param ids
+	 *            IDs of the indexed individuals
+	 */
+	SameIndividualsClasses(IIndividual[] individuals, int numMethods, Map<IIndividual, Integer> ids) {
+		classIds = new int[numMethods];
+		for (int id = 0; id < numMethods; id++) {
+			classIds[id] = id;
+		}
+		for (int id = 0; id < numMethods; id++) {
+			for (IIndividual same : ((IMethod) individuals[id]).getSameIndividuals()) {
+				Integer sameId = ids.get(same);
+				if (sameId != null && sameId < numMethods) {
+					union(id, sameId);
+				}
+			}
+		}
+		for (int id = 0; id < numMethods; id++) {
+			classIds[id] = find(id);
+		}
+	}
+
+	private int find(int id) {
+		while (classIds[id] != id) {
+			classIds[id] = classIds[classIds[id]]; // path halving
+			id = classIds[id];
+		}
+		return id;
+	}
+
+	private void union(int a, int b) {
+		int rootA = find(a);
+		int rootB = find(b);
+		if (rootA < rootB) {
+			classIds[rootB] = rootA;
+		} else if (rootB < rootA) {
+			classIds[rootA] = rootB;
+		}
+	}
+
+	/**
+	 * Get the class of a method.
+	 *
+	 * @param methodId
+	 *            ID of the method
+	 * @return smallest method ID of the class
+	 */
+	int getClassId(int methodId) {
+		return classIds[methodId];
+	}
+}
@@ -0,0 +1,23 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+/**
+ * Plain Java implementation of the {@link ICharHistogramKernel}, used if the
+ * Vector API kernel is disabled or not available.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+public final class ScalarCharHistogramKernel implements ICharHistogramKernel {
+
+	@Override
+	public void countCommon(byte[] query, byte[] packed, int fromName, int toName, int[] common) {
+		for (int name = fromName; name < toName; name++) {
+			int offset = name * CharHistograms.BUCKETS;
+			int sum = 0;
+			for (int b = 0; b < CharHistograms.BUCKETS; b++) {
+				sum += Math.min(query[b], packed[offset + b]);
+			}
+			common[name - fromName] = sum;
+		}
+	}
+}
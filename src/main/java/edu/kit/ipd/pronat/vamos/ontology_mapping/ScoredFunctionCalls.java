@@ -0,0 +1,139 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import edu.kit.ipd.parse.ontology_connection.IIndividual;
+
+import java.util.Arrays;
+
+/**
+ * Scored function calls as parallel arrays instead of one FunctionCallCandidate
+ * with a parameter list and a parameter map per scored mapping. A call refers to
+ * the position of its unscored function call candidate and holds its mapped
+ * pairs: the position of the parameter candidate in the candidate, the slot of
+ * the ontology parameter in the method signature (see {@link MethodDescriptor})
+ * and the individual passed to it (the sub-object if substituted, null for
+ * primitive parameter candidates). The pairs of all calls share one pool. A
+ * call without pairs is the unscored candidate itself, scored without mapping.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+final class ScoredFunctionCalls {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private int[] candidateIndices = new int[DEFAULT_CAPACITY];
+	private double[] scores = new double[DEFAULT_CAPACITY];
+	private int[] pairStarts = new int[DEFAULT_CAPACITY + 1];
+	private int size;
+
+	private int[] parameterIndices = new int[DEFAULT_CAPACITY];
+	private int[] slots = new int[DEFAULT_CAPACITY];
+	private IIndividual[] individuals = new IIndividual[DEFAULT_CAPACITY];
+	private int pairCount;
+
+	/**
+	 * Add a mapped pair to the call which is added next.
+	 *
+	 * @param parameterIndex
+	 *            position of the parameter candidate in the function call
+	 *            candidate
+	 * @param slot
+	 *            position of the ontology parameter in the method signature
+	 * @param individual
+	 *            individual passed to the ontology parameter, null if primitive
+	 */
+	void addPair(int parameterIndex, int slot, IIndividual individual) {
+		if (pairCount == slots.length) {
+			parameterIndices = Arrays.copyOf(parameterIndices, 2 * pairCount);
+			slots = Arrays.copyOf(slots, 2 * pairCount);
+			individuals = Arrays.copyOf(individuals, 2 * pairCount);
+		}
+		parameterIndices[pairCount] = parameterIndex;
+		slots[pairCount] = slot;
+		individuals[pairCount] = individual;
+		pairCount++;
+	}
+
+	/**
+	 * Drop the pairs added since the last call was added.
+	 */
+	void discardPairs() {
+		for (int p = pairStarts[size]; p < pairCount; p++) {
+			individuals[p] = null;
+		}
+		pairCount = pairStarts[size];
+	}
+
+	/**
+	 * Add a call with the pairs added since the last call was added.
+	 *
+	 * @param candidateIndex
+	 *            position of the unscored function call candidate
+	 * @param score
+	 *            function call score
+	 * @return position of the call
+	 */
+	int add(int candidateIndex, double score) {
+		if (size + 1 == pairStarts.length) {
+			candidateIndices = Arrays.copyOf(candidateIndices, 2 * size);
+			scores = Arrays.copyOf(scores, 2 * size);
+			pairStarts = Arrays.copyOf(pairStarts, 2 * size + 1);
+		}
+		candidateIndices[size] = candidateIndex;
+		scores[size] = score;
+		pairStarts[++size] = pairCount;
+		return size - 1;
+	}
+
+	/**
+	 * Remove all calls and pairs, and drop the references to their individuals.
+	 */
+	void clear() {
+		Arrays.fill(individuals, 0, pairCount, null);
+		size = 0;
+		pairCount = 0;
+	}
+
+	/**
+	 * Remove the call added last, together with its pairs.
+	 */
+	void removeLast() {
+		size--;
+		discardPairs();
+	}
+
+	int size() {
+		return size;
+	}
+
+	int getCandidateIndex(int i) {
+		return candidateIndices[i];
+	}
+
+	double getScore(int i) {
+		return scores[i];
+	}
+
+	/**
+	 * Get the number of mapped pairs of a call.
+	 *
+	 * @param i
+	 *            position of the call
+	 * @return number of pairs, 0 if the call has no mapping
+	 */
+	int getPairCount(int i) {
+		return pairStarts[i + 1] - pairStarts[i];
+	}
+
+	int getParameterIndex(int i, int pair) {
+		return parameterIndices[pairStarts[i] + pair];
+	}
+
+	int getSlot(int i, int pair) {
+		return slots[pairStarts[i] + pair];
+	}
+
+	IIndividual getIndividual(int i, int pair) {
+		return individuals[pairStarts[i] + pair];
+	}
+}
@@ -0,0 +1,124 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import edu.kit.ipd.parse.ontology_connection.IIndividual;
+import edu.kit.ipd.parse.ontology_connection.method.IMethod;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Ontology matches as parallel arrays of {@link OntologyIndex} IDs and scores,
+ * instead of one ImmutablePair and one boxed Double per match. The individuals
+ * are only looked up when a match is read.
+ *
+ * The scores are doubles, not floats, so they stay bit-identical to the Double
+ * scores of the list API and the function call scores computed from them do
+ * not change. The matches are kept in ID order and are not sorted or cut to the
+ * best k: the mappers turn them into candidates in this order, which decides
+ * ties when the best function calls are selected, and only that selection (see
+ * {@link TopNSelector}) ranks them.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+public final class ScoredMatches {
+
+	private static final int DEFAULT_CAPACITY = 8;
+
+	private final OntologyIndex index;
+	private int[] ids;
+	private double[] scores;
+	private int size;
+
+	ScoredMatches(OntologyIndex index) {
+		this(index, DEFAULT_CAPACITY);
+	}
+
+	ScoredMatches(OntologyIndex index, int capacity) {
+		this.index = index;
+		ids = new int[Math.max(capacity, 1)];
+		scores = new double[ids.length];
+	}
+
+	/**
+	 * Create the matches of all IDs having a score, in ID order.
+	 */
+	static ScoredMatches of(OntologyIndex index, DenseScores dense) {
+		ScoredMatches matches = new ScoredMatches(index, dense.ids().cardinality());
+		for (int id = dense.ids().nextSetBit(0); id >= 0; id = dense.ids().nextSetBit(id + 1)) {
+			matches.add(id, dense.get(id));
+		}
+		return matches;
+	}
+
+	void add(int id, double score) {
+		if (size == ids.length) {
+			ids = Arrays.copyOf(ids, 2 * size);
+			scores = Arrays.copyOf(scores, 2 * size);
+		}
+		ids[size] = id;
+		scores[size] = score;
+		size++;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	int getId(int i) {
+		return ids[i];
+	}
+
+	public double getScore(int i) {
+		return scores[i];
+	}
+
+	public IIndividual getIndividual(int i) {
+		return index.getIndividual(ids[i]);
+	}
+
+	/**
+	 * Get the method of a match; only valid for method matches.
+	 *
+	 * @param i
+	 *            position of the match
+	 * @return matched method
+	 */
+	public IMethod getMethod(int i) {
+		return (IMethod) index.getIndividual(ids[i]);
+	}
+
+	/**
+	 * Adapter to the list of ImmutablePairs of score and individual.
+	 *
+	 * @return list of matches, each ImmutablePaired with the double similarity score
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends IIndividual> List<ImmutablePair<Double, T>> toPairs() {
+		List<ImmutablePair<Double, T>> pairs = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			pairs.add(new ImmutablePair<>(scores[i], (T) index.getIndividual(ids[i])));
+		}
+		return pairs;
+	}
+
+	/**
+	 * Get the names of the matched individuals, for logging.
+	 *
+	 * @return names joined with "; "
+	 */
+	public String getNames() {
+		StringJoiner joiner = new StringJoiner("; ");
+		for (int i = 0; i < size; i++) {
+			joiner.add(index.getIndividual(ids[i]).getName());
+		}
+		return joiner.toString();
+	}
+}
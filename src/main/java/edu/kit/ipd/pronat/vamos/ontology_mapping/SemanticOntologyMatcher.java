@@ -0,0 +1,162 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import edu.kit.ipd.parse.luna.tools.ConfigManager;
+import edu.kit.ipd.pronat.vamos.MethodSynthesizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Matches instruction lemmas to ontology individuals by the cosine similarity
+ * of word embeddings, e.g. "grab" -> takeCup, which the string metrics of the
+ * {@link StringOntologyMatcher} cannot find. The vectors are taken from a local
+ * word2vec file (WORD_VECTORS_PATH); the normalized names of the
+ * {@link OntologyIndex} individuals are embedded once and put into two
+ * {@link HnswIndex}es, one for methods and one for parameter individuals.
+ * Both indexes are built eagerly when {@link #getInstance()} first creates the
+ * matcher, i.e. when the first name and parameter mappers are created; the
+ * first execution pays for the embedding and insertion, later lookups only
+ * search.
+ *
+ * Semantic matching is optional (USE_WORD_VECTORS), {@link #getInstance()}
+ * returns null if it is disabled or the file cannot be read.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+public final class SemanticOntologyMatcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(SemanticOntologyMatcher.class);
+	private static final int MAX_CONNECTIONS = 16;
+	private static final int EF_CONSTRUCTION = 100;
+	private static final int EF_SEARCH = 50;
+
+	private static SemanticOntologyMatcher instance;
+	private static boolean initialized;
+
+	private final WordVectors wordVectors;
+	private final OntologyIndex index;
+	private final HnswIndex methodIndex;
+	private final HnswIndex parameterIndex;
+	private final int topK;
+	private final double minSimilarity;
+
+	private SemanticOntologyMatcher(WordVectors wordVectors, OntologyIndex index, int topK, double minSimilarity) {
+		this.wordVectors = wordVectors;
+		this.index = index;
+		this.topK = topK;
+		this.minSimilarity = minSimilarity;
+
+		methodIndex = new HnswIndex(MAX_CONNECTIONS, EF_CONSTRUCTION);
+		parameterIndex = new HnswIndex(MAX_CONNECTIONS, EF_CONSTRUCTION);
+		int unknown = 0;
+		for (int id = 0; id < index.size(); id++) {
+			if (!index.isMethod(id) && !index.isParameter(id)) {
+				continue; // skip typedobject as IValue e.g. (Drinkable)
+			}
+			float[] vector = wordVectors.embed(index.getNormalizedName(id));
+			if (vector == null) {
+				unknown++;
+			} else if (index.isMethod(id)) {
+				methodIndex.add(id, vector);
+			} else {
+				parameterIndex.add(id, vector);
+			}
+		}
+
+		logger.info("Embedded {} methods and {} parameter individuals, {} individuals without known words.", methodIndex.size(),
+				parameterIndex.size(), unknown);
+	}
+
+	/**
+	 * Get the semantic matcher configured for the {@link MethodSynthesizer}. It is
+	 * built once on first access.
+	 *
+	 * @return the semantic matcher or null if word vectors are disabled or not
+	 *         available
+	 */
+	public static synchronized SemanticOntologyMatcher getInstance() {
+		if (!initialized) {
+			initialized = true;
+			Properties props = ConfigManager.getConfiguration(MethodSynthesizer.class);
+			String path = props.getProperty("WORD_VECTORS_PATH", "").trim();
+			if (!Boolean.parseBoolean(props.getProperty("USE_WORD_VECTORS", "false")) || path.isEmpty()) {
+				return null;
+			}
+
+			try {
+				instance = new SemanticOntologyMatcher(WordVectors.load(Paths.get(path)), OntologyIndex.getInstance(),
+						Integer.parseInt(props.getProperty("WORD_VECTORS_TOP_K", "5")),
+						Double.parseDouble(props.getProperty("WORD_VECTORS_MIN_SIMILARITY", "0.6")));
+			} catch (IOException e) {
+				logger.warn("Cannot load word vectors from '{}', semantic matching is disabled.", path, e);
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Find the methods semantically closest to the given names.
+	 *
+	 * @param names
+	 *            (lemmatized) names to search for
+	 * @return method matches with the cosine similarity of the best matching name
+	 */
+	public ScoredMatches findMethodMatches(List<String> names) {
+		return ScoredMatches.of(index, getBestSimilarities(names, methodIndex));
+	}
+
+	/**
+	 * Find the objects, values and states semantically closest to the given names.
+	 *
+	 * @param names
+	 *            names to search for
+	 * @return parameter matches with the cosine similarity of the best matching
+	 *         name
+	 */
+	public ScoredMatches findParameterMatches(List<String> names) {
+		return findParameterMatches(names, null);
+	}
+
+	/**
+	 * Find the individuals of the given subset of the objects, values and states
+	 * semantically closest to the given names.
+	 *
+	 * @param names
+	 *            names to search for
+	 * @param scope
+	 *            IDs of the parameter individuals to keep, null to keep all
+	 * @return parameter matches with the cosine similarity of the best matching
+	 *         name
+	 */
+	ScoredMatches findParameterMatches(List<String> names, BitSet scope) {
+		DenseScores best = getBestSimilarities(names, parameterIndex);
+		BitSet found = best.ids();
+		if (scope != null) {
+			found = (BitSet) found.clone();
+			found.and(scope);
+		}
+		ScoredMatches matches = new ScoredMatches(index, found.cardinality());
+		for (int id = found.nextSetBit(0); id >= 0; id = found.nextSetBit(id + 1)) {
+			matches.add(id, best.get(id) * index.getScoreFactor(id));
+		}
+		return matches;
+	}
+
+	private DenseScores getBestSimilarities(List<String> names, HnswIndex hnswIndex) {
+		DenseScores best = new DenseScores(index.size());
+		for (String name : names) {
+			float[] query = wordVectors.embed(OntologyIndex.normalizeQuery(name));
+			if (query == null) {
+				continue;
+			}
+			for (HnswIndex.Neighbor neighbor : hnswIndex.search(query, topK, EF_SEARCH, minSimilarity)) {
+				best.offer(neighbor.getId(), neighbor.getSimilarity());
+			}
+		}
+		return best;
+	}
+}
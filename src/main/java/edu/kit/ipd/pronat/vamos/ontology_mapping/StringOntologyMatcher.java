@@ -1,6 +1,7 @@
 package edu.kit.ipd.pronat.vamos.ontology_mapping;
 
 import com.google.common.base.CaseFormat;
+import edu.kit.ipd.parse.luna.tools.ConfigManager;
 import edu.kit.ipd.parse.ontology_connection.Domain;
 import edu.kit.ipd.parse.ontology_connection.IDomain;
 import edu.kit.ipd.parse.ontology_connection.IIndividual;
@@ -9,12 +10,10 @@ import edu.kit.ipd.parse.ontology_connection.datatype.IDataType;
 import edu.kit.ipd.parse.ontology_connection.method.IMethod;
 import edu.kit.ipd.parse.ontology_connection.object.IObject;
 import edu.kit.ipd.parse.ontology_connection.search_strategy.Fuzzy;
-import edu.kit.ipd.parse.ontology_connection.search_strategy.ISearchStrategy;
 import edu.kit.ipd.parse.ontology_connection.search_strategy.JaroWinkler;
-import edu.kit.ipd.parse.ontology_connection.state.IState;
-import edu.kit.ipd.parse.ontology_connection.value.IValue;
+import edu.kit.ipd.pronat.vamos.MethodSynthesizer;
+import edu.kit.ipd.pronat.vamos.utils.MathUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.text.similarity.FuzzyScore;
 import org.apache.commons.text.similarity.JaroWinklerDistance;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,270 +29,453 @@ public class StringOntologyMatcher {
 	private static final Logger logger = LoggerFactory.getLogger(StringOntologyMatcher.class);
 	private static IDomain domain = Domain.getInstance();
 
-	private static MyJaroWinkler jaroWinkler = new MyJaroWinkler(0.40f);
+	private static final float JW_THRESHOLD = 0.40f;
+	private static final float FUZZY_THRESHOLD = 0.15f;
+	private static final double MIN_PARAMETER_SCORE = 0.4;
+	private static MyJaroWinkler jaroWinkler = new MyJaroWinkler(JW_THRESHOLD);
 
 	private static class MyJaroWinkler extends JaroWinkler {
-		JaroWinklerDistance jwd = new JaroWinklerDistance();
+		private final float threshold;
 
 		MyJaroWinkler(float threshold) {
 			super(threshold);
+			this.threshold = threshold;
 		}
 
+		/**
+		 * Same score as JaroWinklerSimilarity applied to the raw dotted components
+		 * (sum divided by two) or to the normalized name, computed with the
+		 * {@link JaroWinklerKernel} on the terms precomputed by the
+		 * {@link OntologyIndex}. Similarities below the threshold are returned as 0.
+		 */
 		@Override
 		public double score(String searchString, IIndividual individual) {
-			String individualName = individual.getName();
-
-			double score = 0;
-			if (individualName.split("\\.").length > 1) {
-				for (String substring : individualName.split("\\.")) { // split individual words; e.g. Dishwasher.Door -> "Dishwasher", "Door"
-					individualName = CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, individualName); // e.g. CoffeeMachine -> coffee_machine
-					individualName = individualName.replace("_", " ") // remove underscores e.g. coffee_machine -> coffee machine
-							.replaceAll("[0-9]", ""); // remove numbers  e.g. move1 -> move
+			OntologyIndex index = OntologyIndex.getInstance();
+			int id = index.getId(individual);
+			char[][] terms = id >= 0 ? index.getJaroWinklerTerms(id) : JaroWinklerKernel.compileTerms(individual.getName());
 
-					score += jwd.apply(searchString, substring);
-				}
-				return score / 2;
-			} else {
-				individualName = CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, individualName);
-				individualName = individualName.replace("_", " ") // remove underscores e.g. coffee_machine -> coffee machine
-						.replaceAll("[0-9]", ""); // remove numbers  e.g. move1 -> move
-
-				return jwd.apply(searchString, individualName);
-			}
+			JaroWinklerKernel kernel = JaroWinklerKernel.get();
+			return kernel.score(kernel.compileQuery(searchString), terms, threshold);
 		}
 	}
 
-	private static MyFuzzy fuzzySearch = new MyFuzzy(0.15f);
+	private static MyFuzzy fuzzySearch = new MyFuzzy(FUZZY_THRESHOLD);
 
 	private static class MyFuzzy extends Fuzzy {
-		private final FuzzyScore fs;
 
 		MyFuzzy(float threshold) {
 			super(threshold);
-			fs = new FuzzyScore(Locale.ENGLISH);
 		}
 
+		/**
+		 * Same score as FuzzyScore of the normalized name divided by the maximal score
+		 * of the longer string, computed with the {@link FuzzyScoreKernel} on the
+		 * lowercased terms precomputed by the {@link OntologyIndex}.
+		 */
 		@Override
 		public double score(String searchString, IIndividual individual) {
-			String individualName = individual.getName();
-			individualName = CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_UNDERSCORE, individualName); // Dishwasher.Door -> dishwasher._door
-			individualName = individualName.replace("_", " ") // remove underscores e.g. dishwasher._door -> dishwasher. door
-					.replace(".", "") // remove dots e.g. dishwasher. door -> dishwasher door
-					.replaceAll("[0-9]", ""); // remove numbers e.g. move1 -> move
-
-			int length = searchString.length() > individualName.length() ? searchString.length() : individualName.length();
-			int maxScore = 3 * length - 2;
+			OntologyIndex index = OntologyIndex.getInstance();
+			int id = index.getId(individual);
+			char[] query = FuzzyScoreKernel.get().compileQuery(searchString);
+			if (id >= 0) {
+				return FuzzyScoreKernel.normalizedScore(index.getFuzzyTerm(id), index.getFuzzyTermLength(id), query,
+						searchString.length());
+			}
 
-			return ((double) fs.fuzzyScore(individualName, searchString)) / ((double) maxScore);
+			String individualName = FuzzyScoreKernel.normalizeTerm(individual.getName());
+			return FuzzyScoreKernel.normalizedScore(FuzzyScoreKernel.lowerCase(individualName), individualName.length(), query,
+					searchString.length());
 		}
 	}
 
+	// edit distance for candidate generation with the ontology name trie, -1 (default) to score all individuals
+	private final int candidateEditDistance;
+	// add phonetically similar individuals (ASR misrecognitions) to the generated candidates
+	private final boolean usePhoneticCandidates;
+	// counts common chars of a search string and all ontology names to skip hopeless comparisons
+	private final ICharHistogramKernel histogramKernel;
+
+	public StringOntologyMatcher() {
+		Properties props = ConfigManager.getConfiguration(MethodSynthesizer.class);
+		candidateEditDistance = Integer.parseInt(props.getProperty("CANDIDATE_EDIT_DISTANCE", "-1"));
+		usePhoneticCandidates = Boolean.parseBoolean(props.getProperty("PHONETIC_CANDIDATES", "false"));
+		histogramKernel = CharHistograms.createKernel(Boolean.parseBoolean(props.getProperty("VECTOR_API_KERNEL", "false")));
+	}
+
 	/**
 	 * Find matches between the given method names and the elements of the connected
 	 * ontology. Use an ensemble of two string distance metrics: Jaro Winkler and
-	 * Fuzzy Search.
+	 * Fuzzy Search. All names are scored in one pass over the ontology methods.
 	 *
 	 * @param combinedMethodName
 	 *            list of extracted method names to search for
-	 * @return list of possible method matches, each ImmutablePaired with a double
-	 *         similarity score
+	 * @return method matches with their similarity scores
 	 */
-	public List<ImmutablePair<Double, IMethod>> getMethodEnsembleMatches(List<String> combinedMethodName) {
+	public ScoredMatches findMethodMatches(List<String> combinedMethodName) {
 		logger.debug("Get possible method string matches from {} combined names with ensemble metric:", combinedMethodName.size());
 		logger.debug(combinedMethodName.stream().map(e -> e.toString() + "|").reduce("", String::concat));
 
-		List<ImmutablePair<Double, IMethod>> jwMatches = new ArrayList<>();
-		List<ImmutablePair<Double, IMethod>> fsMatches = new ArrayList<>();
-		for (String name : combinedMethodName) {
-			jwMatches.addAll(domain.getMethods().getMemberBySearchStringAsMap(name, jaroWinkler));
-			fsMatches.addAll(domain.getMethods().getMemberBySearchStringAsMap(name, fuzzySearch));
-		}
+		OntologyIndex index = OntologyIndex.getInstance();
+		ScoredMatches overlaps = getBatchEnsembleMatches(compileQueries(combinedMethodName), 0, index.getNumMethods(), null,
+				Double.NEGATIVE_INFINITY);
 
-		// can contain multiple matches to the same IMethod -> get best score of each unique ontology item each
-		Map<IMethod, Double> jwMatchesMap = getBestScorePerMethodMatch(jwMatches);
-		Map<IMethod, Double> fsMatchesMap = getBestScorePerMethodMatch(fsMatches);
+		logger.debug("Keep only overlapping method matches: {} matches: {}", overlaps.size(), overlaps.getNames());
+		return overlaps;
+	}
 
-		// get overlap of those matches. if no overlap, return empty list
-		return getOverlappingMethodMatches(jwMatchesMap, fsMatchesMap);
+	/**
+	 * List based variant of {@link #findMethodMatches(List)}.
+	 *
+	 * @param combinedMethodName
+	 *            list of extracted method names to search for
+	 * @return list of possible method matches, each ImmutablePaired with a double
+	 *         similarity score
+	 */
+	public List<ImmutablePair<Double, IMethod>> getMethodEnsembleMatches(List<String> combinedMethodName) {
+		return findMethodMatches(combinedMethodName).toPairs();
 	}
 
 	/**
 	 * Find matches between the given parameter names and the elements of the
 	 * connected ontology. Use an ensemble of two string distance metrics: Jaro
-	 * Winkler and Fuzzy Search.
+	 * Winkler and Fuzzy Search. All names are scored in one pass over the ontology
+	 * objects, values and states.
 	 * 
 	 * @param permutedParameterName
 	 *            list of extracted parameter names to search for
+	 * @return parameter matches with their similarity scores
+	 */
+	public ScoredMatches findParameterMatches(List<String> permutedParameterName) {
+		return findParameterMatches(permutedParameterName, null);
+	}
+
+	/**
+	 * Find matches between the given parameter names and the given subset of the
+	 * ontology objects, values and states, see {@link #findParameterMatches(List)}.
+	 *
+	 * @param permutedParameterName
+	 *            list of extracted parameter names to search for
+	 * @param scope
+	 *            IDs of the parameter individuals to search in the
+	 *            {@link OntologyIndex}, null to search all of them
+	 * @return parameter matches with their similarity scores
+	 */
+	ScoredMatches findParameterMatches(List<String> permutedParameterName, BitSet scope) {
+		logger.debug("Get possible parameter string matches for {} permuted names with ensemble metric.", permutedParameterName.size());
+
+		OntologyIndex index = OntologyIndex.getInstance();
+		ScoredMatches overlaps = getBatchEnsembleMatches(compileQueries(permutedParameterName), index.getNumMethods(), index.size(),
+				scope != null ? scope : index.getParameterIds(), MIN_PARAMETER_SCORE);
+
+		logger.debug("Keep only overlapping parameter matches: {} matches: {}", overlaps.size(), overlaps.getNames());
+		return overlaps;
+	}
+
+	/**
+	 * List based variant of {@link #findParameterMatches(List)}.
+	 *
+	 * @param permutedParameterName
+	 *            list of extracted parameter names to search for
 	 * @return list of possible parameter matches, each ImmutablePaired with a
 	 *         double similarity score
 	 */
 	public List<ImmutablePair<Double, IIndividual>> getParameterEnsembleMatches(List<String> permutedParameterName) {
-		logger.debug("Get possible parameter string matches for {} permuted names with ensemble metric.", permutedParameterName.size());
-
-		List<ImmutablePair<Double, IIndividual>> jwMatches = new ArrayList<>();
-		List<ImmutablePair<Double, IIndividual>> fsMatches = new ArrayList<>();
-		for (String name : permutedParameterName) {
-			jwMatches.addAll(getParameterMatchesByStrategy(name, jaroWinkler));
-			fsMatches.addAll(getParameterMatchesByStrategy(name, fuzzySearch));
-		}
+		return findParameterMatches(permutedParameterName).toPairs();
+	}
 
-		// get best score of each unique ontology item each
-		Map<IIndividual, Double> jwMatchesMap = getBestScoreOfParamMatches(jwMatches);
-		Map<IIndividual, Double> fsMatchesMap = getBestScoreOfParamMatches(fsMatches);
+	/**
+	 * Find (almost) perfect matches of the given synonyms in the ontology methods.
+	 * Only individuals whose normalized name (or dotted name component) is at most
+	 * one edit away from a normalized synonym are looked up in the
+	 * {@link OntologyIndex}. They get the same ensemble score as in
+	 * {@link #findMethodMatches(List)}, but individuals farther away from all
+	 * synonyms are not scored at all.
+	 *
+	 * @param synonyms
+	 *            synonyms to search for
+	 * @param minScore
+	 *            minimal (exclusive) averaged ensemble score of a match
+	 * @return method matches with their similarity scores
+	 */
+	public ScoredMatches findMethodSynonymMatches(List<String> synonyms, double minScore) {
+		OntologyIndex index = OntologyIndex.getInstance();
+		BitSet methodIds = new BitSet(index.size());
+		methodIds.set(0, index.getNumMethods());
+		return getSynonymMatches(synonyms, minScore, methodIds);
+	}
 
-		// get overlap of those matches. if no overlap, return empty list
-		return getOverlappingParamMatches(jwMatchesMap, fsMatchesMap);
+	/**
+	 * Find (almost) perfect matches of the given synonyms in the ontology objects,
+	 * values and states. See {@link #findMethodSynonymMatches(List, double)}.
+	 *
+	 * @param synonyms
+	 *            synonyms to search for
+	 * @param minScore
+	 *            minimal (exclusive) averaged ensemble score of a match
+	 * @return parameter matches with their similarity scores
+	 */
+	public ScoredMatches findParameterSynonymMatches(List<String> synonyms, double minScore) {
+		return findParameterSynonymMatches(synonyms, minScore, null);
 	}
 
-	private List<ImmutablePair<Double, IIndividual>> getParameterMatchesByStrategy(String name, ISearchStrategy strategy) {
-		List<ImmutablePair<Double, IIndividual>> matches = new ArrayList<>();
+	/**
+	 * Find (almost) perfect matches of the given synonyms in the given subset of
+	 * the ontology objects, values and states.
+	 *
+	 * @param synonyms
+	 *            synonyms to search for
+	 * @param minScore
+	 *            minimal (exclusive) averaged ensemble score of a match
+	 * @param scope
+	 *            IDs of the parameter individuals to search, null to search all
+	 *            of them
+	 * @return parameter matches with their similarity scores
+	 */
+	ScoredMatches findParameterSynonymMatches(List<String> synonyms, double minScore, BitSet scope) {
+		OntologyIndex index = OntologyIndex.getInstance();
+		// skip methods and typedobjects as IValue e.g. (Drinkable)
+		return getSynonymMatches(synonyms, minScore, scope != null ? scope : index.getParameterIds());
+	}
 
-		List<ImmutablePair<Double, IObject>> memberObjects = domain.getObjects().getMemberBySearchStringAsMap(name, strategy);
-		for (ImmutablePair<Double, IObject> member : memberObjects) {
-			if (member.getRight().getName().equals("Person")) { // special case for placeholder Person
-				matches.add(new ImmutablePair<>(member.getKey() / 2.0, (IIndividual) member.getValue()));
-			} else {
-				matches.add(new ImmutablePair<>(member.getKey(), (IIndividual) member.getValue()));
+	/**
+	 * Score the eligible individuals found near the synonyms in the
+	 * {@link OntologyIndex} like {@link #getBatchEnsembleMatches}: the best Jaro
+	 * Winkler and the best Fuzzy score of the raw (not normalized) synonyms must
+	 * both reach their threshold and are averaged, multiplied with the score factor
+	 * of the individual.
+	 */
+	private ScoredMatches getSynonymMatches(List<String> synonyms, double minScore, BitSet eligible) {
+		OntologyIndex index = OntologyIndex.getInstance();
+		List<String> queries = new ArrayList<>(new LinkedHashSet<>(synonyms));
+		BitSet found = new BitSet(index.size());
+		for (String query : queries) {
+			for (int id : index.findNearExact(query)) {
+				found.set(id);
 			}
 		}
+		found.and(eligible);
 
-		Set<String> types = domain.getTypedObjects().getTypes();
-		List<ImmutablePair<Double, IValue>> memberValues = domain.getValues().getMemberBySearchStringAsMap(name, strategy);
-		for (ImmutablePair<Double, IValue> member : memberValues) {
-			if (types.contains(member.getRight().getName())) {
-				continue; // skip typedobject as IValue e.g. (Drinkable)
-			}
-
-			matches.add(new ImmutablePair<>(member.getKey(), (IIndividual) member.getValue()));
+		char[][] jaroWinklerQueries = new char[queries.size()][];
+		char[][] fuzzyQueries = new char[queries.size()][];
+		for (int q = 0; q < queries.size(); q++) {
+			jaroWinklerQueries[q] = queries.get(q).toCharArray();
+			fuzzyQueries[q] = FuzzyScoreKernel.lowerCase(queries.get(q));
 		}
 
-		List<ImmutablePair<Double, IState>> memberStates = domain.getStates().getMemberBySearchStringAsMap(name, strategy);
-		for (ImmutablePair<Double, IState> member : memberStates) {
-			matches.add(new ImmutablePair<>(member.getKey(), (IIndividual) member.getValue()));
+		JaroWinklerKernel jaroWinklerKernel = JaroWinklerKernel.get();
+		ScoredMatches matches = new ScoredMatches(index, found.cardinality());
+		for (int id = found.nextSetBit(0); id >= 0; id = found.nextSetBit(id + 1)) {
+			double jw = 0;
+			double fs = 0;
+			for (int q = 0; q < queries.size(); q++) {
+				jw = Math.max(jw, jaroWinklerKernel.score(jaroWinklerQueries[q], index.getJaroWinklerTerms(id), JW_THRESHOLD));
+				fs = Math.max(fs, FuzzyScoreKernel.normalizedScore(index.getFuzzyTerm(id), index.getFuzzyTermLength(id), fuzzyQueries[q],
+						queries.get(q).length()));
+			}
+			if (jw < JW_THRESHOLD || fs < FUZZY_THRESHOLD) {
+				continue; // not found by both metrics
+			}
+			double avgScore = (jw + fs) / 2.0 * index.getScoreFactor(id);
+			if (avgScore > minScore) {
+				matches.add(id, avgScore);
+			}
 		}
-
-		// logger.debug("Found {} parameter matches for String '{}' with strategy {}:", matches.size(), name, strategy);
-		// matches.forEach(m -> logger.debug(m.getValue().getName() + "(" + m.getKey() + "); "));
 		return matches;
 	}
 
 	/**
-	 * Get a map of ontology item matches with their similarity score. Only save the
-	 * best score for each unique item.
+	 * Get all methods whose normalized name (or one of its dotted components or
+	 * words) is within the given edit distance of the search string. Only the
+	 * ontology name trie is searched, the methods are not scored. The same search
+	 * generates the candidates of the string metrics if CANDIDATE_EDIT_DISTANCE is
+	 * configured.
 	 *
-	 * @param matches
-	 *            the given matches
-	 * @return the map of item with its best similarity score
+	 * @param name
+	 *            search string, e.g. "pick up"
+	 * @param maxDistance
+	 *            maximal edit distance
+	 * @return list of methods
 	 */
-	private Map<IMethod, Double> getBestScorePerMethodMatch(List<ImmutablePair<Double, IMethod>> matches) {
-		// only add item once
-		Map<IMethod, Double> matchesMap = new HashMap<>();
-		for (ImmutablePair<Double, IMethod> match : matches) {
-			IMethod method = match.getValue();
-			double similarityScore = match.getKey();
-
-			// only add item, if the score is higher
-			if (matchesMap.containsKey(method)) {
-				if (similarityScore > matchesMap.get(method)) {
-					matchesMap.put(method, similarityScore);
-				}
-
-			} else {
-				matchesMap.put(method, similarityScore);
+	public List<IMethod> getMethodsWithinDistance(String name, int maxDistance) {
+		OntologyIndex index = OntologyIndex.getInstance();
+		List<IMethod> methods = new ArrayList<>();
+		for (int id : index.findWithinDistance(name, maxDistance)) {
+			if (index.isMethod(id)) {
+				methods.add((IMethod) index.getIndividual(id));
 			}
 		}
-
-		return matchesMap;
+		return methods;
 	}
 
 	/**
-	 * Get a map of ontology item matches with their similarity score. Only save the
-	 * best score for each unique item.
+	 * Get all methods with a word which sounds like a word of the search string,
+	 * e.g. to find "takeCereal" for the misrecognized "take serial".
 	 *
-	 * @param matches
-	 *            the given matches
-	 * @return the map of item with its best similarity score
+	 * @param name
+	 *            search string
+	 * @return list of methods
 	 */
-	private Map<IIndividual, Double> getBestScoreOfParamMatches(List<ImmutablePair<Double, IIndividual>> matches) {
-		// only add item once
-		Map<IIndividual, Double> matchesMap = new HashMap<>();
-		for (ImmutablePair<Double, IIndividual> match : matches) {
-			IIndividual param = match.getValue();
-			double similarityScore = match.getKey();
-
-			// only add item, if the score is higher
-			if (matchesMap.containsKey(param)) {
-				if (similarityScore > matchesMap.get(param)) {
-					matchesMap.put(param, similarityScore);
-				}
-			} else {
-				matchesMap.put(param, similarityScore);
+	public List<IMethod> getPhoneticallySimilarMethods(String name) {
+		OntologyIndex index = OntologyIndex.getInstance();
+		List<IMethod> methods = new ArrayList<>();
+		for (int id : index.findPhonetic(name)) {
+			if (index.isMethod(id)) {
+				methods.add((IMethod) index.getIndividual(id));
 			}
 		}
+		return methods;
+	}
 
-		return matchesMap;
+	/**
+	 * Get the candidates to score for the given search string from the
+	 * {@link OntologyIndex}.
+	 *
+	 * @param name
+	 *            search string
+	 * @return candidate IDs, or null if candidate generation is disabled and every
+	 *         individual has to be scored
+	 */
+	private BitSet findCandidates(String name) {
+		if (candidateEditDistance < 0) {
+			return null;
+		}
+		return OntologyIndex.getInstance().findCandidates(name, candidateEditDistance, usePhoneticCandidates);
 	}
 
 	/**
-	 * Find overlap of method matches between the list of found matches of the two
-	 * distance metrics.
-	 * 
-	 * @param jw
-	 *            jaro winkler method matches
-	 * @param fs
-	 *            fuzzy search method matches
-	 * @return List of overlapping method matches, each ImmutablePaired with the
-	 *         double similarity score
+	 * Search strings of one instruction, compiled once for the whole ontology pass.
 	 */
-	private List<ImmutablePair<Double, IMethod>> getOverlappingMethodMatches(Map<IMethod, Double> jw, Map<IMethod, Double> fs) {
-		List<ImmutablePair<Double, IMethod>> overlaps = new ArrayList<>();
-		for (IMethod overlap : jw.keySet()) {
-			logger.debug("overlap cand:" + overlap.getName());
-			// get IMethod overlap in the two search strategies
-			if (fs.containsKey(overlap)) {
-				logger.debug("in fs");
-				// return averaged score with overlapping strategies
-				double avgScore = (jw.get(overlap) + fs.get(overlap)) / 2.0;
-				overlaps.add(new ImmutablePair<>(avgScore, overlap));
-			}
+	private static final class QueryBatch {
+		private final char[][] jaroWinklerQueries;
+		private final char[][] fuzzyQueries;
+		private final int[] queryLengths;
+		// char histograms, null if a search string is too long
+		private final byte[][] histograms;
+		// generated candidates per search string, null if every individual is scored
+		private final BitSet[] candidates;
+		// union of all candidates, null if every individual is scored
+		private final BitSet union;
+
+		private QueryBatch(int size, boolean useCandidates) {
+			jaroWinklerQueries = new char[size][];
+			fuzzyQueries = new char[size][];
+			queryLengths = new int[size];
+			histograms = new byte[size][];
+			candidates = new BitSet[size];
+			union = useCandidates ? new BitSet() : null;
 		}
 
-		logger.debug("Keep only overlapping method matches. Reduce from {} to {} matches.", (jw.size() + fs.size()), overlaps.size());
-		overlaps.forEach(m -> logger.debug(m.getValue().getName() + "(" + m.getKey() + "); "));
-		return overlaps;
+		private int size() {
+			return queryLengths.length;
+		}
+	}
+
+	private QueryBatch compileQueries(List<String> names) {
+		List<String> queries = new ArrayList<>(new LinkedHashSet<>(names));
+		QueryBatch batch = new QueryBatch(queries.size(), candidateEditDistance >= 0);
+		for (int q = 0; q < queries.size(); q++) {
+			String query = queries.get(q);
+			batch.jaroWinklerQueries[q] = query.toCharArray();
+			batch.fuzzyQueries[q] = FuzzyScoreKernel.lowerCase(query);
+			batch.queryLengths[q] = query.length();
+			batch.histograms[q] = CharHistograms.queryHistogram(batch.jaroWinklerQueries[q], batch.fuzzyQueries[q]);
+			batch.candidates[q] = findCandidates(query);
+			if (batch.union != null) {
+				batch.union.or(batch.candidates[q]);
+			}
+		}
+		return batch;
 	}
 
 	/**
-	 * Find overlap of parameter matches between the list of found matches of the
-	 * two distance metrics.
-	 * 
-	 * @param jw
-	 *            jaro winkler parameter matches
-	 * @param fs
-	 *            fuzzy search parameter matches
-	 * @return List of overlapping parameter matches, each ImmutablePaired with the
-	 *         double similarity score
+	 * Score all search strings of the batch against the individuals with IDs in
+	 * [fromId, toId), restricted to the eligible IDs if given. The loops are
+	 * interchanged: each individual is scored against all search strings while its
+	 * terms are at hand, and only its best Jaro Winkler and best Fuzzy score are
+	 * kept, in dense arrays indexed by ID. Individuals found by both metrics (AND of
+	 * the found IDs) are returned with the averaged score, multiplied with the
+	 * score factor of the individual.
+	 *
+	 * On full scans, the common char counts of each search string with all
+	 * individuals are computed first by the {@link ICharHistogramKernel}; metrics
+	 * whose upper bound is below their threshold are not computed, and the Fuzzy
+	 * score is not computed at all if no Jaro Winkler score reached the threshold.
 	 */
-	private List<ImmutablePair<Double, IIndividual>> getOverlappingParamMatches(Map<IIndividual, Double> jw, Map<IIndividual, Double> fs) {
-		List<ImmutablePair<Double, IIndividual>> overlaps = new ArrayList<>();
-		for (IIndividual overlap : jw.keySet()) {
-
-			// get IIndividual overlap in the two search strategies
-			if (fs.containsKey(overlap)) {
-				// return averaged score with overlapping strategies
-				double avgScore = (jw.get(overlap) + fs.get(overlap)) / 2.0;
-				if (avgScore > 0.4) {
-					overlaps.add(new ImmutablePair<>(avgScore, overlap));
+	private ScoredMatches getBatchEnsembleMatches(QueryBatch batch, int fromId, int toId, BitSet eligible, double minAverageScore) {
+		OntologyIndex index = OntologyIndex.getInstance();
+		JaroWinklerKernel jaroWinklerKernel = JaroWinklerKernel.get();
+		DenseScores jwScores = new DenseScores(index.size());
+		DenseScores fsScores = new DenseScores(index.size());
+
+		int[][] commonChars = new int[batch.size()][];
+		if (batch.union == null) {
+			for (int q = 0; q < batch.size(); q++) {
+				if (batch.histograms[q] != null) {
+					commonChars[q] = new int[toId - fromId];
+					histogramKernel.countCommon(batch.histograms[q], index.getCharHistograms(), fromId, toId, commonChars[q]);
 				}
-				if (avgScore <= 0.4) {
-					logger.debug("drop overlap match {} with avg score {} <= 0.4)", overlap.getName(), avgScore);
+			}
+		}
+
+		// IDs to score, null to score the whole range
+		BitSet scan = batch.union;
+		if (eligible != null) {
+			scan = (BitSet) eligible.clone();
+			if (batch.union != null) {
+				scan.and(batch.union);
+			}
+		}
+
+		for (int id = scan == null ? fromId : scan.nextSetBit(fromId); id >= 0 && id < toId; id = scan == null ? id + 1
+				: scan.nextSetBit(id + 1)) {
+			char[][] terms = index.getJaroWinklerTerms(id);
+			boolean bounded = index.hasCharHistogram(id);
+			for (int q = 0; q < batch.size(); q++) {
+				if (batch.candidates[q] != null && !batch.candidates[q].get(id)) {
+					continue;
+				}
+				if (bounded && commonChars[q] != null && JaroWinklerKernel.upperBound(commonChars[q][id - fromId],
+						batch.jaroWinklerQueries[q].length, terms) < JW_THRESHOLD - MathUtils.BOUND_SLACK) {
+					continue;
+				}
+				double jw = jaroWinklerKernel.score(batch.jaroWinklerQueries[q], terms, JW_THRESHOLD);
+				if (jw >= JW_THRESHOLD) {
+					jwScores.offer(id, jw);
+				}
+			}
+			if (!jwScores.contains(id)) {
+				continue; // not found by Jaro Winkler -> cannot overlap
+			}
+
+			char[] fuzzyTerm = index.getFuzzyTerm(id);
+			int fuzzyTermLength = index.getFuzzyTermLength(id);
+			for (int q = 0; q < batch.size(); q++) {
+				if (batch.candidates[q] != null && !batch.candidates[q].get(id)) {
+					continue;
+				}
+				if (bounded && commonChars[q] != null && FuzzyScoreKernel.upperBound(commonChars[q][id - fromId], fuzzyTermLength,
+						batch.queryLengths[q]) < FUZZY_THRESHOLD - MathUtils.BOUND_SLACK) {
+					continue;
+				}
+				double fs = FuzzyScoreKernel.normalizedScore(fuzzyTerm, fuzzyTermLength, batch.fuzzyQueries[q], batch.queryLengths[q]);
+				if (fs >= FUZZY_THRESHOLD) {
+					fsScores.offer(id, fs);
 				}
 			}
 		}
 
-		logger.debug("Keep only overlapping parameter matches. Reduce from {} to {} matches.", (jw.size() + fs.size()), overlaps.size());
-		overlaps.forEach(m -> logger.debug(m.getValue().getName() + "(" + m.getKey() + "); "));
-		return overlaps;
+		// get overlap of the two metrics and average their best scores
+		BitSet overlap = jwScores.overlap(fsScores);
+		ScoredMatches matches = new ScoredMatches(index, overlap.cardinality());
+		for (int id = overlap.nextSetBit(0); id >= 0; id = overlap.nextSetBit(id + 1)) {
+			double avgScore = (jwScores.get(id) + fsScores.get(id)) / 2.0 * index.getScoreFactor(id);
+			if (avgScore > minAverageScore) {
+				matches.add(id, avgScore);
+			} else {
+				logger.debug("drop overlap match {} with avg score {} <= {})", index.getIndividual(id).getName(), avgScore, minAverageScore);
+			}
+		}
+		return matches;
 	}
 
 	public IObject checkForTypedObjects(String name, IDataType type) {
@@ -0,0 +1,144 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import java.util.Arrays;
+
+/**
+ * Selects the N best scored items of a stream without keeping the others: a
+ * fixed-size min-heap over the primitive scores and indices of the items, whose
+ * root is the worst of the current top N. Items with equal scores are ranked the
+ * way the former sort of all candidates (ascending, then reversed) ranked them:
+ * the later item first.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+final class TopNSelector {
+
+	private final double[] scores;
+	private final int[] indices;
+	private int limit;
+	private int size;
+	private int offered;
+
+	TopNSelector(int n) {
+		scores = new double[Math.max(n, 0)];
+		indices = new int[scores.length];
+		limit = scores.length;
+	}
+
+	/**
+	 * Start a new selection.
+	 *
+	 * @param n
+	 *            number of items to select, at most the capacity
+	 */
+	void reset(int n) {
+		limit = Math.max(n, 0);
+		size = 0;
+		offered = 0;
+	}
+
+	/**
+	 * Get the largest number of items this selector can select.
+	 *
+	 * @return capacity
+	 */
+	int getCapacity() {
+		return scores.length;
+	}
+
+	/**
+	 * Offer the next scored item.
+	 *
+	 * @param score
+	 *            score of the item
+	 * @param index
+	 *            index of the item, larger than the indices offered before
+	 */
+	void offer(double score, int index) {
+		offered++;
+		if (size < limit) {
+			set(size, score, index);
+			siftUp(size++);
+		} else if (size > 0 && ranksBefore(score, index, 0)) {
+			set(0, score, index);
+			siftDown(0);
+		}
+	}
+
+	/**
+	 * Get the number of offered items.
+	 *
+	 * @return number of items offered so far
+	 */
+	int getOffered() {
+		return offered;
+	}
+
+	/**
+	 * Get the selected items, best first. Ends the selection: no items may be
+	 * offered afterwards.
+	 *
+	 * @return indices of at most N items
+	 */
+	int[] toIndices() {
+		// heap sort: move the worst item to the end until the heap is empty
+		int heapSize = size;
+		while (size > 1) {
+			swap(0, --size);
+			siftDown(0);
+		}
+		size = heapSize;
+		return Arrays.copyOf(indices, size);
+	}
+
+	// the item with the given score and index ranks before the item at position i
+	private boolean ranksBefore(double score, int index, int i) {
+		int compared = Double.compare(score, scores[i]);
+		return compared > 0 || (compared == 0 && index > indices[i]);
+	}
+
+	private void siftUp(int i) {
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (!ranksBefore(scores[parent], indices[parent], i)) {
+				return;
+			}
+			swap(i, parent);
+			i = parent;
+		}
+	}
+
+	private void siftDown(int i) {
+		while (true) {
+			int worst = i;
+			int left = 2 * i + 1;
+			int right = left + 1;
+			if (left < size && !ranksBefore(scores[left], indices[left], worst)) {
+				worst = left;
+			}
+			if (right < size && !ranksBefore(scores[right], indices[right], worst)) {
+				worst = right;
+			}
+			if (worst == i) {
+				return;
+			}
+			swap(i, worst);
+			i = worst;
+		}
+	}
+
+	private void set(int i, double score, int index) {
+		scores[i] = score;
+		indices[i] = index;
+	}
+
+	private void swap(int a, int b) {
+		double score = scores[a];
+		scores[a] = scores[b];
+		scores[b] = score;
+		int index = indices[a];
+		indices[a] = indices[b];
+		indices[b] = index;
+	}
+}
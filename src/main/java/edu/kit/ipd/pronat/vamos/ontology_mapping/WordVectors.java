@@ -0,0 +1,246 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Read-only access to a local word embedding file in the binary word2vec
+ * format (header "numWords dimension", then per word: the word, a space and
+ * dimension little endian floats). The file is memory mapped; on loading, only
+ * an open addressing hash table over the vocabulary is built, the words and
+ * vectors stay in the mapped file. The table is keyed by the lowercased word
+ * and holds only primitives per word: the offset of its vector, the length of
+ * the word and the hash of its lowercased form.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+public final class WordVectors {
+
+	private static final Logger logger = LoggerFactory.getLogger(WordVectors.class);
+	// files larger than 2GB are mapped in overlapping segments
+	private static final long SEGMENT_SIZE = 1L << 30;
+	// longer words are not indexed
+	private static final int MAX_WORD_BYTES = 1024;
+
+	private final int dimension;
+	private final MappedByteBuffer[] segments;
+	// hash table over the words in file order, an empty slot has offset 0
+	private final long[] vectorOffsets;
+	private final int[] wordLengths;
+	private final int[] lowerCaseHashes;
+	private final int tableMask;
+	private int numWords;
+
+	private WordVectors(int dimension, MappedByteBuffer[] segments, int numWords) {
+		this.dimension = dimension;
+		this.segments = segments;
+		int capacity = Integer.highestOneBit(Math.max(numWords, 1) * 2 - 1) << 1;
+		vectorOffsets = new long[capacity];
+		wordLengths = new int[capacity];
+		lowerCaseHashes = new int[capacity];
+		tableMask = capacity - 1;
+	}
+
+	/**
+	 * Memory map the given word2vec binary file and index its vocabulary.
+	 *
+	 * @param path
+	 *            path of the embedding file
+	 * @return the word vectors
+	 * @throws IOException
+	 *             if the file cannot be read or has an invalid format
+	 */
+	public static WordVectors load(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			int numSegments = (int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+			MappedByteBuffer[] segments = new MappedByteBuffer[Math.max(numSegments, 1)];
+
+			long position = 0;
+			StringBuilder header = new StringBuilder();
+			MappedByteBuffer first = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, SEGMENT_SIZE));
+			byte b;
+			while (position < size && (b = first.get((int) position++)) != '\n') {
+				header.append((char) b);
+			}
+			String[] counts = header.toString().trim().split(" ");
+			if (counts.length != 2) {
+				throw new IOException("Invalid word2vec header in " + path + ": " + header);
+			}
+			int numWords = Integer.parseInt(counts[0]);
+			int dimension = Integer.parseInt(counts[1]);
+
+			// the overlap has to hold one word and its vector, so its size is known only after the header
+			long overlap = 4L * dimension + MAX_WORD_BYTES + 1;
+			for (int i = 0; i < segments.length; i++) {
+				long start = i * SEGMENT_SIZE;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, SEGMENT_SIZE + overlap));
+				segments[i].order(ByteOrder.LITTLE_ENDIAN);
+			}
+
+			WordVectors vectors = new WordVectors(dimension, segments, numWords);
+			for (int w = 0; w < numWords && position < size; w++) {
+				// skip the line break after the previous vector
+				while (position < size && vectors.getByte(position) == '\n') {
+					position++;
+				}
+				long wordStart = position;
+				while (position < size && vectors.getByte(position) != ' ') {
+					position++;
+				}
+				int length = (int) Math.min(position - wordStart, Integer.MAX_VALUE);
+				position++; // space
+				if (length <= MAX_WORD_BYTES) {
+					vectors.add(position, length);
+				}
+				position += 4L * dimension;
+			}
+
+			logger.info("Memory mapped {} word vectors of dimension {} from {}.", vectors.numWords, dimension, path);
+			return vectors;
+		} catch (NumberFormatException e) {
+			throw new IOException("Invalid word2vec header in " + path, e);
+		}
+	}
+
+	// words with the same lowercased form are probed in file order, as they share the start slot
+	private void add(long vectorOffset, int length) {
+		int hash = readWord(vectorOffset, length).toLowerCase(Locale.ENGLISH).hashCode();
+		int slot = spread(hash) & tableMask;
+		while (vectorOffsets[slot] != 0) {
+			slot = (slot + 1) & tableMask;
+		}
+		vectorOffsets[slot] = vectorOffset;
+		wordLengths[slot] = length;
+		lowerCaseHashes[slot] = hash;
+		numWords++;
+	}
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	private String readWord(long vectorOffset, int length) {
+		// the word ends with the space before its vector
+		long wordStart = vectorOffset - 1 - length;
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = getByte(wordStart + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private byte getByte(long position) {
+		return segments[(int) (position / SEGMENT_SIZE)].get((int) (position % SEGMENT_SIZE));
+	}
+
+	/**
+	 * Get the number of indexed words.
+	 *
+	 * @return size of the vocabulary
+	 */
+	public int size() {
+		return numWords;
+	}
+
+	public int getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * Get the vector of the given word. Lowercased words are also found in their
+	 * most frequent casing, e.g. "cup" -> "Cup".
+	 *
+	 * @param word
+	 *            word to look up
+	 * @return a copy of the vector or null if the word is unknown
+	 */
+	public float[] getVector(String word) {
+		long offset = findVectorOffset(word);
+		if (offset == 0) {
+			return null;
+		}
+
+		// the overlap of the segments guarantees that the whole vector is in the segment of its start
+		MappedByteBuffer segment = segments[(int) (offset / SEGMENT_SIZE)];
+		int start = (int) (offset % SEGMENT_SIZE);
+		float[] vector = new float[dimension];
+		for (int i = 0; i < dimension; i++) {
+			vector[i] = segment.getFloat(start + 4 * i);
+		}
+		return vector;
+	}
+
+	// the first word in file order which equals the given word or whose lowercased form does, else the first word with
+	// the same lowercased form as the given word; 0 if there is none
+	private long findVectorOffset(String word) {
+		String lowerCase = word.toLowerCase(Locale.ENGLISH);
+		int hash = lowerCase.hashCode();
+		long fallback = 0;
+		for (int slot = spread(hash) & tableMask; vectorOffsets[slot] != 0; slot = (slot + 1) & tableMask) {
+			if (lowerCaseHashes[slot] != hash) {
+				continue;
+			}
+			String candidate = readWord(vectorOffsets[slot], wordLengths[slot]);
+			String candidateLowerCase = candidate.toLowerCase(Locale.ENGLISH);
+			if (candidate.equals(word) || candidateLowerCase.equals(word)) {
+				return vectorOffsets[slot];
+			}
+			if (fallback == 0 && candidateLowerCase.equals(lowerCase)) {
+				fallback = vectorOffsets[slot];
+			}
+		}
+		return fallback;
+	}
+
+	/**
+	 * Embed a phrase as the normalized average of the vectors of its known words.
+	 *
+	 * @param phrase
+	 *            space separated words
+	 * @return unit length embedding or null if none of the words is known
+	 */
+	public float[] embed(String phrase) {
+		float[] sum = new float[dimension];
+		int known = 0;
+		for (String word : phrase.split(" ")) {
+			float[] vector = word.isEmpty() ? null : getVector(word);
+			if (vector != null) {
+				normalize(vector);
+				for (int i = 0; i < dimension; i++) {
+					sum[i] += vector[i];
+				}
+				known++;
+			}
+		}
+		if (known == 0 || !normalize(sum)) {
+			return null;
+		}
+		return sum;
+	}
+
+	private static boolean normalize(float[] vector) {
+		double norm = 0;
+		for (float v : vector) {
+			norm += v * v;
+		}
+		if (norm == 0) {
+			return false;
+		}
+		float inverse = (float) (1.0 / Math.sqrt(norm));
+		for (int i = 0; i < vector.length; i++) {
+			vector[i] *= inverse;
+		}
+		return true;
+	}
+}
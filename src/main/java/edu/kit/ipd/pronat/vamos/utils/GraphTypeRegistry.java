@@ -0,0 +1,64 @@
+package edu.kit.ipd.pronat.vamos.utils;
+
+import edu.kit.ipd.parse.luna.graph.IArcType;
+import edu.kit.ipd.parse.luna.graph.IGraph;
+import edu.kit.ipd.parse.luna.graph.INodeType;
+
+/**
+ * Node and arc types of one graph. All types are resolved once when the
+ * registry is created (once per exec) and then handed to the pipeline stages,
+ * so the graph is not asked for the same type in every node loop. Types which
+ * do not exist in the graph are null.
+ *
+ * @author Sebastian Weigelt
+ * @author Vanessa Steurer
+ */
+public final class GraphTypeRegistry {
+
+	private final IGraph graph;
+	private final IArcType srlArcType;
+	private final IArcType referenceArcType;
+	private final IArcType contextRelationArcType;
+	private final INodeType contextEntityNodeType;
+	private final INodeType contextActionNodeType;
+
+	public GraphTypeRegistry(IGraph graph) {
+		this.graph = graph;
+		srlArcType = graph.getArcType(GraphUtils.SRL_ARC_TYPE);
+		referenceArcType = graph.getArcType(GraphUtils.REFERENCE_ARC_TYPE);
+		contextRelationArcType = graph.getArcType(GraphUtils.CONTEXT_RELATION_ARC_TYPE);
+		contextEntityNodeType = graph.getNodeType(GraphUtils.CONTEXT_ENTITY_NODE_TYPE);
+		contextActionNodeType = graph.getNodeType(GraphUtils.CONTEXT_ACTION_NODETYPE);
+	}
+
+	public IArcType getSrlArcType() {
+		return srlArcType;
+	}
+
+	public IArcType getReferenceArcType() {
+		return referenceArcType;
+	}
+
+	public IArcType getContextRelationArcType() {
+		return contextRelationArcType;
+	}
+
+	public INodeType getContextEntityNodeType() {
+		return contextEntityNodeType;
+	}
+
+	public INodeType getContextActionNodeType() {
+		return contextActionNodeType;
+	}
+
+	/**
+	 * Check if the graph contains the context annotations (references and context
+	 * relations) needed for synonyms and coreference resolution.
+	 *
+	 * @return true if context annotations are available
+	 */
+	public boolean hasContextAnnotations() {
+		return referenceArcType != null && contextRelationArcType != null && !graph.getArcsOfType(referenceArcType).isEmpty()
+				&& !graph.getArcsOfType(contextRelationArcType).isEmpty();
+	}
+}
@@ -110,44 +110,4 @@ public final class GraphUtils {
 		}
 		return result;
 	}
-
-	public static IArcType getSrlArcType() {
-		if (!graphIsSet()) {
-			logger.error("Graph not set! Returning null");
-			return null;
-		}
-		return graph.getArcType(SRL_ARC_TYPE);
-	}
-
-	public static IArcType getReferenceArcType() {
-		if (!graphIsSet()) {
-			logger.error("Graph not set! Returning null");
-			return null;
-		}
-		return graph.getArcType(REFERENCE_ARC_TYPE);
-	}
-
-	public static IArcType getContextRelationArcType() {
-		if (!graphIsSet()) {
-			logger.error("Graph not set! Returning null");
-			return null;
-		}
-		return graph.getArcType(CONTEXT_RELATION_ARC_TYPE);
-	}
-
-	public static INodeType getContextEntityNodeType() {
-		if (!graphIsSet()) {
-			logger.error("Graph not set! Returning null");
-			return null;
-		}
-		return graph.getNodeType(CONTEXT_ENTITY_NODE_TYPE);
-	}
-
-	public static INodeType getContextActionNodeType() {
-		if (!graphIsSet()) {
-			logger.error("Graph not set! Returning null");
-			return null;
-		}
-		return graph.getNodeType(CONTEXT_ACTION_NODETYPE);
-	}
-}
\ No newline at end of file
+}
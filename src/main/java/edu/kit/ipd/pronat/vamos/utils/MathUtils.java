@@ -8,6 +8,13 @@ import java.util.*;
  */
 public class MathUtils {
 
+	/**
+	 * Slack subtracted from a score threshold before comparing an upper bound of a
+	 * score against it. It guards against rounding in the evaluation of the bound,
+	 * so a candidate is only skipped if its bound is clearly below the threshold.
+	 */
+	public static final double BOUND_SLACK = 1e-9;
+
 	/**
 	 * Recursive implementation of the cartesian product. Creates every combination
 	 * of candidates, preserving the different DescriptionParameter chunks. Example:
@@ -71,6 +78,35 @@ public class MathUtils {
 		return mapList;
 	}
 
+	/**
+	 * Index variant of {@link #cartesianProductTwoTypes(List, List)}: the
+	 * combinations between a list of numLeft elements and a list of numRight
+	 * distinct elements, in the same order. Combination c maps the j-th LEFT
+	 * element to the RIGHT element at index [c][j], or to none if it is -1.
+	 *
+	 * @param numLeft
+	 *            number of fixed elements
+	 * @param numRight
+	 *            number of elements to be mapped
+	 * @return combinations of indices into RIGHT
+	 */
+	public static int[][] cartesianProductIndices(int numLeft, int numRight) {
+		List<Integer> right = new ArrayList<>();
+		for (int i = 0; i < numRight; i++) {
+			right.add(i);
+		}
+		right.addAll(repeat(-1, numLeft - numRight));
+		List<List<Integer>> perm = permLen(right, numLeft);
+
+		int[][] combinations = new int[perm.size()][numLeft];
+		for (int i = 0; i < perm.size(); i++) {
+			for (int j = 0; j < numLeft; j++) {
+				combinations[i][j] = perm.get(i).get(j);
+			}
+		}
+		return combinations;
+	}
+
 	/**
 	 * Recursively execute dept first search to get all possible permutations.
 	 *
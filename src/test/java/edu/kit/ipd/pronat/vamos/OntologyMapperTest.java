@@ -87,4 +87,20 @@ public class OntologyMapperTest {
 		 * returns [ a:1; b:1; c:null; ] [ a:null; b:x; c:1; ] [ a:1; b:null; c:1; ]
 		 */
 	}
+
+	@Test
+	public void testCartesianProductIndices() {
+		List<String> left = Arrays.asList("a", "b", "c");
+		List<String> right = Arrays.asList("i", "j");
+
+		List<Map<String, String>> maps = MathUtils.cartesianProductTwoTypes(left, new ArrayList<>(right));
+		int[][] combinations = MathUtils.cartesianProductIndices(left.size(), right.size());
+		assertEquals(maps.size(), combinations.length);
+		for (int c = 0; c < combinations.length; c++) {
+			for (int j = 0; j < left.size(); j++) {
+				String expected = maps.get(c).get(left.get(j));
+				assertEquals(expected, combinations[c][j] < 0 ? null : right.get(combinations[c][j]));
+			}
+		}
+	}
 }
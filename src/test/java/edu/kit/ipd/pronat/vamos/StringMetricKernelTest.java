@@ -0,0 +1,139 @@
+package edu.kit.ipd.pronat.vamos;
+
+import edu.kit.ipd.pronat.vamos.ontology_mapping.FuzzyScoreKernel;
+import edu.kit.ipd.pronat.vamos.ontology_mapping.JaroWinklerKernel;
+import org.apache.commons.text.similarity.FuzzyScore;
+import org.apache.commons.text.similarity.JaroWinklerSimilarity;
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StringMetricKernelTest {
+
+	private static final String[] NAMES = { "", "a", "go", "pick up", "pick up cup", "take cup", "dishwasher door", "Dishwasher", "Door",
+			"coffee machine", "open", "opens", "hello", "hallo", "frog", "fog", "PENNSYLVANIA", "PENNCISYLVNIA", "ABC Corporation",
+			"ABC Corp" };
+
+	private static final JaroWinklerSimilarity jws = new JaroWinklerSimilarity();
+	private static final FuzzyScore fs = new FuzzyScore(Locale.ENGLISH);
+
+	@Test
+	public void jaroWinklerIsBitIdentical() {
+		JaroWinklerKernel kernel = JaroWinklerKernel.get();
+		for (String first : NAMES) {
+			for (String second : NAMES) {
+				assertJaroWinkler(kernel, first, second);
+			}
+		}
+
+		Random random = new Random(42);
+		for (int i = 0; i < 100000; i++) {
+			assertJaroWinkler(kernel, randomString(random, 12), randomString(random, 12));
+		}
+	}
+
+	@Test
+	public void jaroWinklerThresholdOnlyDropsLowScores() {
+		JaroWinklerKernel kernel = JaroWinklerKernel.get();
+		Random random = new Random(42);
+		for (int i = 0; i < 100000; i++) {
+			String first = randomString(random, 12);
+			String second = randomString(random, 12);
+			double expected = expectedJaroWinkler(first, second);
+			double actual = kernel.similarity(first.toCharArray(), second.toCharArray(), 0.4);
+			if (expected >= 0.4) {
+				assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+			} else {
+				assertTrue(actual < 0.4);
+			}
+		}
+	}
+
+	@Test
+	public void jaroWinklerCapsPrefixAndScoresEmptyStrings() {
+		JaroWinklerKernel kernel = JaroWinklerKernel.get();
+		// 7 matches, no transpositions, common prefix of 7 chars capped at 4
+		double jaro = (1D + 7D / 11 + 1D) / 3;
+		assertEquals(jaro + 0.1 * 4 * (1D - jaro), kernel.similarity("pick up".toCharArray(), "pick up cup".toCharArray()), 0.0);
+		assertEquals(0.9272727272727272, kernel.similarity("pick up".toCharArray(), "pick up cup".toCharArray()), 0.0);
+		assertEquals(0.0, kernel.similarity(new char[0], new char[0]), 0.0);
+		assertEquals(0.0, kernel.similarity(new char[0], "cup".toCharArray()), 0.0);
+	}
+
+	@Test
+	public void jaroWinklerIsASimilarity() {
+		// the minimal score of 0.4 keeps similar names: equal names score 1, names without common chars 0
+		JaroWinklerKernel kernel = JaroWinklerKernel.get();
+		assertEquals(1.0, kernel.similarity("cup".toCharArray(), "cup".toCharArray()), 0.0);
+		assertEquals(0.0, kernel.similarity("cup".toCharArray(), "door".toCharArray()), 0.0);
+		assertTrue(kernel.similarity("grab".toCharArray(), "grasp".toCharArray(), 0.4) >= 0.4);
+		assertTrue(kernel.similarity("cup".toCharArray(), "fridge".toCharArray(), 0.4) < 0.4);
+	}
+
+	@Test
+	public void jaroWinklerScoresDottedComponents() {
+		JaroWinklerKernel kernel = JaroWinklerKernel.get();
+		double expected = (jws.apply("dishwasher door", "Dishwasher") + jws.apply("dishwasher door", "Door")) / 2;
+		double actual = kernel.score("dishwasher door".toCharArray(), JaroWinklerKernel.compileTerms("Dishwasher.Door"), 0.4);
+		assertEquals(expected, actual, 0.0);
+
+		assertEquals(jws.apply("coffee", "coffee machine"),
+				kernel.score("coffee".toCharArray(), JaroWinklerKernel.compileTerms("CoffeeMachine1"), 0.4), 0.0);
+	}
+
+	@Test
+	public void fuzzyScoreIsIdentical() {
+		for (String term : NAMES) {
+			for (String query : NAMES) {
+				assertFuzzyScore(term, query);
+			}
+		}
+
+		Random random = new Random(42);
+		for (int i = 0; i < 100000; i++) {
+			assertFuzzyScore(randomString(random, 12), randomString(random, 12));
+		}
+	}
+
+	@Test
+	public void fuzzyScoreIsNormalizedByLongerString() {
+		String term = FuzzyScoreKernel.normalizeTerm("Dishwasher.Door1");
+		assertEquals("dishwasher door", term);
+
+		double expected = ((double) fs.fuzzyScore(term, "Open Door")) / (3 * term.length() - 2);
+		double actual = FuzzyScoreKernel.normalizedScore(FuzzyScoreKernel.lowerCase(term), term.length(),
+				FuzzyScoreKernel.get().compileQuery("Open Door"), "Open Door".length());
+		assertEquals(expected, actual, 0.0);
+	}
+
+	private static void assertFuzzyScore(String term, String query) {
+		int expected = fs.fuzzyScore(term, query);
+		int actual = FuzzyScoreKernel.fuzzyScore(FuzzyScoreKernel.lowerCase(term), FuzzyScoreKernel.get().compileQuery(query));
+		assertEquals(term + " | " + query, expected, actual);
+	}
+
+	private static void assertJaroWinkler(JaroWinklerKernel kernel, String first, String second) {
+		double expected = expectedJaroWinkler(first, second);
+		double actual = kernel.similarity(first.toCharArray(), second.toCharArray());
+		assertEquals(first + " | " + second, Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+	}
+
+	// JaroWinklerSimilarity scores two empty strings with 1, the kernel keeps 0 like every comparison without a match
+	private static double expectedJaroWinkler(String first, String second) {
+		return first.isEmpty() && second.isEmpty() ? 0.0 : jws.apply(first, second);
+	}
+
+	private static String randomString(Random random, int maxLength) {
+		String alphabet = "abcdeorstu .AB";
+		StringBuilder builder = new StringBuilder();
+		int length = random.nextInt(maxLength + 1);
+		for (int i = 0; i < length; i++) {
+			builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return builder.toString();
+	}
+}
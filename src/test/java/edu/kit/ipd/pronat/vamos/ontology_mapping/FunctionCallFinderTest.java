@@ -0,0 +1,203 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import edu.kit.ipd.parse.ontology_connection.method.IMethod;
+import edu.kit.ipd.pronat.vamos.command_representation.AbstractInstruction;
+import edu.kit.ipd.pronat.vamos.command_representation.DescriptionInstruction;
+import edu.kit.ipd.pronat.vamos.command_representation.DescriptionParameter;
+import edu.kit.ipd.pronat.vamos.programm_representation.FunctionCallCandidate;
+import edu.kit.ipd.pronat.vamos.programm_representation.FunctionNameCandidate;
+import edu.kit.ipd.pronat.vamos.programm_representation.FunctionParameterCandidate;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FunctionCallFinderTest {
+
+	private static final int TOP_N = 5;
+	private static final double SLACK = 1e-9;
+
+	private static OntologyIndex index;
+	private static FunctionCallFinder finder;
+	private static FunctionCallScorer scorer;
+
+	@BeforeClass
+	public static void setUp() {
+		index = OntologyIndex.getInstance();
+		finder = new FunctionCallFinder();
+		scorer = new FunctionCallScorer();
+	}
+
+	@Test
+	public void testPruningKeepsTopN() {
+		Random random = new Random(42);
+		for (int i = 0; i < 1000; i++) {
+			List<DescriptionParameter> parameters = createParameters(random.nextInt(3));
+			List<FunctionNameCandidate> names = createNameCandidates(random, parameters, 40);
+			List<List<FunctionParameterCandidate>> parameterCandidates = createParameterCandidates(random, parameters, 4);
+
+			List<FunctionCallCandidate> unpruned = scorer.getTopNScoredCandidates(finder.findFunctionCallCandidates(names, parameterCandidates),
+					TOP_N);
+			List<FunctionCallCandidate> pruned = scorer
+					.getTopNScoredCandidates(finder.findFunctionCallCandidates(names, parameterCandidates, TOP_N), TOP_N);
+			assertEquals(unpruned.size(), pruned.size());
+			for (int c = 0; c < unpruned.size(); c++) {
+				assertEquals(unpruned.get(c).getNameCandidate().getMethodCandidate(), pruned.get(c).getNameCandidate().getMethodCandidate());
+				assertEquals(unpruned.get(c).getFunctionCallScore(), pruned.get(c).getFunctionCallScore(), 0.0);
+				assertEquals(unpruned.get(c).toString(), pruned.get(c).toString());
+			}
+		}
+	}
+
+	@Test
+	public void testFunctionCallScoreBounds() {
+		Random random = new Random(7);
+		for (int i = 0; i < 50; i++) {
+			List<DescriptionParameter> parameters = createParameters(random.nextInt(3));
+			List<FunctionNameCandidate> names = createNameCandidates(random, parameters, 20);
+			List<List<FunctionParameterCandidate>> parameterCandidates = createParameterCandidates(random, parameters, 3);
+
+			for (FunctionCallCandidate call : scorer.calculateCombinedScores(finder.findFunctionCallCandidates(names, parameterCandidates))) {
+				double nameScore = call.getNameCandidate().getSimilarityScore();
+				int numOntoParams = index.getMethodDescriptor(call.getNameCandidate().getMethodCandidate()).getParameterCount();
+				// all ontology parameters mapped with the best parameter score (primitive candidates score 1)
+				double max = FunctionCallScorer.getMaxFunctionCallScore(nameScore, parameters.size(), numOntoParams, numOntoParams, 1.0);
+				double min = FunctionCallScorer.getMinFunctionCallScore(nameScore, parameters.size(), numOntoParams);
+				assertTrue(call.getFunctionCallScore() <= max + SLACK);
+				assertTrue(call.getFunctionCallScore() >= min - SLACK);
+			}
+		}
+	}
+
+	@Test
+	public void testAlwaysScored() {
+		assertTrue(FunctionCallScorer.isAlwaysScored(0.1, 0));
+		assertTrue(FunctionCallScorer.isAlwaysScored(0.81, 2));
+		assertFalse(FunctionCallScorer.isAlwaysScored(0.8, 2));
+
+		Random random = new Random(11);
+		for (int i = 0; i < 50; i++) {
+			List<DescriptionParameter> parameters = createParameters(random.nextInt(3));
+			List<FunctionNameCandidate> names = createNameCandidates(random, parameters, 20);
+			List<List<FunctionParameterCandidate>> parameterCandidates = createParameterCandidates(random, parameters, 3);
+
+			Set<IMethod> scoredClasses = new HashSet<>();
+			for (FunctionCallCandidate call : scorer.calculateCombinedScores(finder.findFunctionCallCandidates(names, parameterCandidates))) {
+				scoredClasses.add(index.getSameIndividualsRepresentative(call.getNameCandidate().getMethodCandidate()));
+			}
+			for (FunctionNameCandidate name : names) {
+				IMethod method = name.getMethodCandidate();
+				if (FunctionCallScorer.isAlwaysScored(name.getSimilarityScore(), index.getMethodDescriptor(method).getParameterCount())) {
+					assertTrue(scoredClasses.contains(index.getSameIndividualsRepresentative(method)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testDuplicateFunctionCallsAreDropped() {
+		Random random = new Random(3);
+		for (int i = 0; i < 50; i++) {
+			List<DescriptionParameter> parameters = createParameters(random.nextInt(3));
+			List<FunctionNameCandidate> names = createNameCandidates(random, parameters, 20);
+			List<List<FunctionParameterCandidate>> parameterCandidates = createParameterCandidates(random, parameters, 3);
+			List<FunctionCallCandidate> candidates = finder.findFunctionCallCandidates(names, parameterCandidates);
+
+			// every function call of the repeated candidates maps the same pairs as one before
+			List<FunctionCallCandidate> repeated = new ArrayList<>(candidates);
+			repeated.addAll(candidates);
+			List<FunctionCallCandidate> expected = scorer.calculateCombinedScores(candidates);
+			List<FunctionCallCandidate> actual = scorer.calculateCombinedScores(repeated);
+			assertEquals(expected.size(), actual.size());
+			for (int c = 0; c < expected.size(); c++) {
+				assertEquals(expected.get(c).toString(), actual.get(c).toString());
+				assertEquals(describeMapping(expected.get(c)), describeMapping(actual.get(c)));
+			}
+		}
+	}
+
+	@Test
+	public void testTopNAreTheBestScoredFunctionCalls() {
+		Random random = new Random(5);
+		for (int i = 0; i < 50; i++) {
+			List<DescriptionParameter> parameters = createParameters(random.nextInt(3));
+			List<FunctionNameCandidate> names = createNameCandidates(random, parameters, 20);
+			List<List<FunctionParameterCandidate>> parameterCandidates = createParameterCandidates(random, parameters, 3);
+			List<FunctionCallCandidate> candidates = finder.findFunctionCallCandidates(names, parameterCandidates);
+
+			// the former selection: sort all scored calls ascending (stable), reverse and keep the first N
+			List<FunctionCallCandidate> sorted = scorer.calculateCombinedScores(candidates);
+			sorted.sort(Comparator.comparingDouble(FunctionCallCandidate::getFunctionCallScore));
+			Collections.reverse(sorted);
+			List<FunctionCallCandidate> topN = scorer.getTopNScoredCandidates(candidates, TOP_N);
+			assertEquals(Math.min(TOP_N, sorted.size()), topN.size());
+			for (int c = 0; c < topN.size(); c++) {
+				assertEquals(sorted.get(c).toString(), topN.get(c).toString());
+				assertEquals(sorted.get(c).getFunctionCallScore(), topN.get(c).getFunctionCallScore(), 0.0);
+			}
+		}
+	}
+
+	// mapped pairs of a scored function call, independent of the order of the map
+	private static List<String> describeMapping(FunctionCallCandidate call) {
+		List<String> pairs = new ArrayList<>();
+		if (call.getMatchingOntologyParametersMap() == null) {
+			return pairs;
+		}
+		call.getMatchingOntologyParametersMap().forEach((candidate, parameter) -> pairs.add(candidate + " -> " + parameter.getName()));
+		Collections.sort(pairs);
+		return pairs;
+	}
+
+	private static List<DescriptionParameter> createParameters(int numParameters) {
+		List<DescriptionParameter> parameters = new ArrayList<>();
+		for (int p = 0; p < numParameters; p++) {
+			DescriptionParameter parameter = new DescriptionParameter(new ArrayList<>());
+			parameter.setClearedParameterNodes(new ArrayList<>());
+			parameter.setClearedNominalizedParameterName("parameter" + p);
+			parameters.add(parameter);
+		}
+		return parameters;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<FunctionNameCandidate> createNameCandidates(Random random, List<DescriptionParameter> parameters, int numNames) {
+		AbstractInstruction instruction = new DescriptionInstruction(new ArrayList<>(), parameters);
+		instruction.setClearedInstructionParameters(parameters);
+		instruction.setClearedLemmatizedInstructionName("instruction");
+
+		List<FunctionNameCandidate> names = new ArrayList<>();
+		for (int n = 0; n < numNames; n++) {
+			IMethod method = (IMethod) index.getIndividual(random.nextInt(index.getNumMethods()));
+			names.add(new FunctionNameCandidate(random.nextDouble(), method, instruction));
+		}
+		return names;
+	}
+
+	private static List<List<FunctionParameterCandidate>> createParameterCandidates(Random random, List<DescriptionParameter> parameters,
+			int numCandidates) {
+		BitSet parameterIds = index.getParameterIds();
+		int[] ids = parameterIds.stream().toArray();
+		List<List<FunctionParameterCandidate>> parameterCandidates = new ArrayList<>();
+		for (DescriptionParameter parameter : parameters) {
+			List<FunctionParameterCandidate> candidates = new ArrayList<>();
+			for (int c = 0; c < numCandidates && ids.length > 0; c++) {
+				candidates.add(new FunctionParameterCandidate(random.nextDouble(), index.getIndividual(ids[random.nextInt(ids.length)]),
+						parameter));
+			}
+			parameterCandidates.add(candidates);
+		}
+		return parameterCandidates;
+	}
+}
@@ -0,0 +1,119 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HnswIndexTest {
+
+	private static final int NUM_VECTORS = 500;
+	private static final int NUM_QUERIES = 50;
+	private static final int DIMENSION = 16;
+	private static final int K = 10;
+	private static final int EF_SEARCH = 50;
+
+	private final Random random = new Random(7L);
+	private float[][] vectors;
+	private HnswIndex index;
+
+	@Before
+	public void setUp() {
+		vectors = new float[NUM_VECTORS][];
+		index = new HnswIndex(16, 100);
+		for (int i = 0; i < NUM_VECTORS; i++) {
+			vectors[i] = randomUnitVector();
+			// external IDs differ from the insertion order
+			index.add(1000 + i, vectors[i]);
+		}
+		assertEquals(NUM_VECTORS, index.size());
+	}
+
+	@Test
+	public void testRecallAgainstBruteForce() {
+		int hits = 0;
+		for (int q = 0; q < NUM_QUERIES; q++) {
+			float[] query = randomUnitVector();
+			Set<Integer> expected = new HashSet<>(bruteForce(query, K));
+			for (HnswIndex.Neighbor neighbor : index.search(query, K, EF_SEARCH)) {
+				if (expected.contains(neighbor.getId())) {
+					hits++;
+				}
+			}
+		}
+		double recall = (double) hits / (NUM_QUERIES * K);
+		assertTrue("recall " + recall, recall >= 0.95);
+	}
+
+	@Test
+	public void testK() {
+		float[] query = randomUnitVector();
+		for (int k : new int[] { 1, 3, K }) {
+			List<HnswIndex.Neighbor> found = index.search(query, k, EF_SEARCH);
+			assertEquals(k, found.size());
+			for (int i = 0; i < found.size(); i++) {
+				assertEquals(similarity(query, vectors[found.get(i).getId() - 1000]), found.get(i).getSimilarity(), 1e-6f);
+				if (i > 0) {
+					assertTrue(found.get(i - 1).getSimilarity() >= found.get(i).getSimilarity());
+				}
+			}
+		}
+		// the nearest neighbor of an indexed vector is the vector itself
+		assertEquals(1042, index.search(vectors[42], 1, EF_SEARCH).get(0).getId());
+		assertTrue(new HnswIndex(16, 100).search(query, K, EF_SEARCH).isEmpty());
+	}
+
+	@Test
+	public void testMinSimilarity() {
+		for (int q = 0; q < NUM_QUERIES; q++) {
+			float[] query = randomUnitVector();
+			List<HnswIndex.Neighbor> all = index.search(query, K, EF_SEARCH);
+			double minSimilarity = all.get(K / 2).getSimilarity();
+			List<HnswIndex.Neighbor> found = index.search(query, K, EF_SEARCH, minSimilarity);
+			// the neighbors at least as similar as the minimum, in the same order
+			assertEquals(K / 2 + 1, found.size());
+			for (int i = 0; i < found.size(); i++) {
+				assertEquals(all.get(i).getId(), found.get(i).getId());
+				assertTrue(found.get(i).getSimilarity() >= minSimilarity);
+			}
+		}
+		assertTrue(index.search(randomUnitVector(), K, EF_SEARCH, 1.5).isEmpty());
+	}
+
+	private List<Integer> bruteForce(float[] query, int k) {
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < NUM_VECTORS; i++) {
+			ids.add(i);
+		}
+		ids.sort(Comparator.comparingDouble((Integer i) -> similarity(query, vectors[i])).reversed());
+		List<Integer> nearest = new ArrayList<>();
+		for (int i = 0; i < k; i++) {
+			nearest.add(1000 + ids.get(i));
+		}
+		return nearest;
+	}
+
+	private static float similarity(float[] a, float[] b) {
+		float dot = 0f;
+		for (int i = 0; i < a.length; i++) {
+			dot += a[i] * b[i];
+		}
+		return dot;
+	}
+
+	private float[] randomUnitVector() {
+		float[] vector = new float[DIMENSION];
+		double norm = 0;
+		for (int i = 0; i < DIMENSION; i++) {
+			vector[i] = (float) random.nextGaussian();
+			norm += vector[i] * vector[i];
+		}
+		for (int i = 0; i < DIMENSION; i++) {
+			vector[i] /= (float) Math.sqrt(norm);
+		}
+		return vector;
+	}
+}
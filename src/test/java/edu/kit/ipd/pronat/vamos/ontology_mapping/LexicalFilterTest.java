@@ -0,0 +1,80 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LexicalFilterTest {
+
+	private static final LexicalFilter filter = new LexicalFilter(new String[] { "how", "now", "can", "mean", "then" },
+			new String[] { "NN", "NNS", "CD" });
+
+	@Test
+	public void testStopwords() {
+		assertTrue(filter.isStopword("how"));
+		assertTrue(filter.isStopword("then"));
+		assertFalse(filter.isStopword("How"));
+		assertFalse(filter.isStopword("cup"));
+		assertFalse(filter.isStopword(""));
+		assertFalse(filter.isStopword(null));
+
+		String input = "show me how";
+		assertTrue(filter.isStopword(input, 8, 11));
+		assertFalse(filter.isStopword(input, 0, 4));
+	}
+
+	@Test
+	public void testRemoveStopwordsKeepsSubTokens() {
+		assertEquals("open the window ", filter.removeStopwords("open the window now"));
+		assertEquals("  known window", filter.removeStopwords("how now known window"));
+		assertEquals("meaning", filter.removeStopwords("meaning"));
+		assertEquals("", filter.removeStopwords("now"));
+
+		String unchanged = "grab the cup";
+		assertEquals(unchanged, filter.removeStopwords(unchanged));
+	}
+
+	@Test
+	public void testModalVerbsAreOnlyDroppedAsStopwords() {
+		// modal verbs have no token class of their own: the configured stopwords decide
+		assertTrue(filter.isStopword("can"));
+		assertFalse(filter.isStopword("should"));
+		assertFalse(filter.isParameterPos("MD"));
+	}
+
+	@Test
+	public void testParameterPos() {
+		assertTrue(filter.isParameterPos("NN"));
+		assertTrue(filter.isParameterPos("CD"));
+		assertFalse(filter.isParameterPos("VB"));
+		assertFalse(filter.isParameterPos(null));
+	}
+
+	@Test
+	public void testConfiguration() {
+		Properties props = new Properties();
+		props.setProperty("STOP_WORDS", " how , now,,can ");
+		props.setProperty("PARAMETER_POS", "JJ, NN");
+		LexicalFilter configured = LexicalFilter.fromConfiguration(props, "mean");
+		assertTrue(configured.isStopword("now"));
+		assertTrue(configured.isStopword("can"));
+		assertFalse(configured.isStopword(""));
+		assertTrue(configured.isParameterPos("JJ"));
+		assertFalse(configured.isParameterPos("CD"));
+
+		assertFalse(configured.isStopword("mean"));
+
+		// each mapper keeps its own default stopword
+		LexicalFilter nameDefaults = LexicalFilter.fromConfiguration(new Properties(), "mean");
+		assertTrue(nameDefaults.isStopword("mean"));
+		assertFalse(nameDefaults.isStopword("how"));
+		assertTrue(nameDefaults.isParameterPos("NN"));
+		LexicalFilter parameterDefaults = LexicalFilter.fromConfiguration(new Properties(), "how");
+		assertTrue(parameterDefaults.isStopword("how"));
+		assertFalse(parameterDefaults.isStopword("mean"));
+	}
+}
@@ -0,0 +1,123 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class NameTrieTest {
+
+	private static final String[] KEYS = { "pick up", "pick", "pickle", "put", "dishwasher door", "door", "do" };
+
+	private static NameTrie createTrie() {
+		Map<String, int[]> keys = new LinkedHashMap<>();
+		for (int id = 0; id < KEYS.length; id++) {
+			keys.put(KEYS[id], new int[] { id });
+		}
+		return new NameTrie(keys);
+	}
+
+	@Test
+	public void testExact() {
+		NameTrie trie = createTrie();
+		assertEquals(ids(1), findExact(trie, "pick"));
+		assertEquals(ids(5), findExact(trie, "door"));
+		assertEquals(ids(), findExact(trie, "pic"));
+		assertEquals(ids(), findExact(trie, "picks"));
+	}
+
+	@Test
+	public void testPrefix() {
+		NameTrie trie = createTrie();
+		assertEquals(ids(0, 1, 2), findPrefix(trie, "pick"));
+		assertEquals(ids(0, 1, 2, 3), findPrefix(trie, "p"));
+		assertEquals(ids(5, 6), findPrefix(trie, "do"));
+		assertEquals(ids(0), findPrefix(trie, "pick up"));
+		assertEquals(ids(), findPrefix(trie, "pick upx"));
+		assertEquals(ids(), findPrefix(trie, "x"));
+		assertEquals(ids(0, 1, 2, 3, 4, 5, 6), findPrefix(trie, ""));
+	}
+
+	@Test
+	public void testQueriesMatchBruteForce() {
+		NameTrie trie = createTrie();
+		assertEquals(ids(0), findWithinDistance(trie, "pik up", 1));
+		assertEquals(ids(5, 6), findWithinDistance(trie, "dor", 1));
+
+		Random random = new Random(42);
+		String alphabet = "pickuledorsw ";
+		for (int i = 0; i < 10000; i++) {
+			StringBuilder query = new StringBuilder();
+			int length = random.nextInt(8);
+			for (int c = 0; c < length; c++) {
+				query.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			int maxDistance = random.nextInt(3);
+
+			BitSet expected = new BitSet();
+			for (int id = 0; id < KEYS.length; id++) {
+				if (levenshtein(query.toString(), KEYS[id]) <= maxDistance) {
+					expected.set(id);
+				}
+			}
+			assertEquals(query + " : " + maxDistance, expected, findWithinDistance(trie, query.toString(), maxDistance));
+
+			BitSet expectedPrefix = new BitSet();
+			for (int id = 0; id < KEYS.length; id++) {
+				if (KEYS[id].startsWith(query.toString())) {
+					expectedPrefix.set(id);
+				}
+			}
+			assertEquals(query.toString(), expectedPrefix, findPrefix(trie, query.toString()));
+		}
+	}
+
+	private static BitSet findExact(NameTrie trie, String key) {
+		BitSet result = new BitSet();
+		trie.findExact(key, result);
+		return result;
+	}
+
+	private static BitSet findPrefix(NameTrie trie, String prefix) {
+		BitSet result = new BitSet();
+		trie.findPrefix(prefix, result);
+		return result;
+	}
+
+	private static BitSet findWithinDistance(NameTrie trie, String query, int maxDistance) {
+		BitSet result = new BitSet();
+		trie.findWithinDistance(query, maxDistance, result);
+		return result;
+	}
+
+	private static BitSet ids(int... ids) {
+		BitSet result = new BitSet();
+		for (int id : ids) {
+			result.set(id);
+		}
+		return result;
+	}
+
+	private static int levenshtein(String first, String second) {
+		int[] previous = new int[second.length() + 1];
+		int[] current = new int[second.length() + 1];
+		for (int j = 0; j <= second.length(); j++) {
+			previous[j] = j;
+		}
+		for (int i = 1; i <= first.length(); i++) {
+			current[0] = i;
+			for (int j = 1; j <= second.length(); j++) {
+				int substitution = previous[j - 1] + (first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1);
+				current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[second.length()];
+	}
+}
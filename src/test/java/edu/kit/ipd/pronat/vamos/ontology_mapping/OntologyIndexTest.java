@@ -0,0 +1,79 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import edu.kit.ipd.parse.ontology_connection.datatype.IDataType;
+import edu.kit.ipd.parse.ontology_connection.method.IMethod;
+import edu.kit.ipd.parse.ontology_connection.object.IObject;
+import edu.kit.ipd.parse.ontology_connection.parameter.IParameter;
+import edu.kit.ipd.parse.ontology_connection.value.IValue;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class OntologyIndexTest {
+
+	private static OntologyIndex index;
+	private static StringOntologyMatcher stringMatcher;
+	// datatypes of the ontology parameters by name
+	private static Collection<IDataType> dataTypes;
+
+	@BeforeClass
+	public static void setUp() {
+		index = OntologyIndex.getInstance();
+		stringMatcher = new StringOntologyMatcher();
+		Map<String, IDataType> dataTypesByName = new HashMap<>();
+		for (int id = 0; id < index.getNumMethods(); id++) {
+			for (IParameter parameter : index.getMethodDescriptor((IMethod) index.getIndividual(id)).getParameters()) {
+				dataTypesByName.putIfAbsent(parameter.getDataType().getName(), parameter.getDataType());
+			}
+		}
+		dataTypes = dataTypesByName.values();
+		assertFalse(dataTypes.isEmpty());
+	}
+
+	@Test
+	public void testHasTypeMatchesTypedObjectLookup() {
+		for (IDataType dataType : dataTypes) {
+			int typeId = index.getTypes().getTypeId(dataType.getName());
+			for (int id = 0; id < index.size(); id++) {
+				if (!index.isObject(id)) {
+					continue;
+				}
+				IObject object = (IObject) index.getIndividual(id);
+				boolean typed = stringMatcher.checkForTypedObjects(object.getName(), dataType) != null;
+				assertEquals(object.getName() + " : " + dataType.getName(), typed, typeId >= 0 && index.getTypes().hasType(object, typeId));
+
+				IObject expectedSubObject = null;
+				if (object.hasSubObjects()) {
+					for (IObject subObject : object.getSubObjects()) {
+						if (stringMatcher.checkForTypedObjects(subObject.getName(), dataType) != null) {
+							expectedSubObject = subObject;
+							break;
+						}
+					}
+				}
+				assertEquals(expectedSubObject, typeId >= 0 ? index.getTypes().getSubObjectOfType(object, typeId) : null);
+			}
+		}
+	}
+
+	@Test
+	public void testValueIdsMatchDataTypeValues() {
+		for (IDataType dataType : dataTypes) {
+			for (int id = 0; id < index.size(); id++) {
+				if (!index.isValue(id)) {
+					continue;
+				}
+				IValue value = (IValue) index.getIndividual(id);
+				boolean expected = dataType.isPrimitive() && dataType.getValues().contains(value);
+				assertEquals(value.getName() + " : " + dataType.getName(), expected, index.getTypes().getValueIds(dataType).get(id));
+				assertEquals(expected, index.getTypes().hasValue(dataType, value));
+			}
+		}
+	}
+}
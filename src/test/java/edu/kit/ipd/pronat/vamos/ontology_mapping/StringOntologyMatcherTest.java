@@ -0,0 +1,123 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import edu.kit.ipd.parse.ontology_connection.method.IMethod;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StringOntologyMatcherTest {
+
+	private static final double PERFECT_SYNONYM_SCORE = 0.9f;
+
+	private static OntologyIndex index;
+	private static StringOntologyMatcher stringMatcher;
+
+	@BeforeClass
+	public static void setUp() {
+		index = OntologyIndex.getInstance();
+		stringMatcher = new StringOntologyMatcher();
+	}
+
+	@Test
+	public void testMethodSynonymMatchesScoreLikeEnsemble() {
+		for (int id = 0; id < index.getNumMethods(); id++) {
+			List<String> synonyms = createSynonyms(index.getIndividual(id).getName());
+			ScoredMatches synonymMatches = stringMatcher.findMethodSynonymMatches(synonyms, PERFECT_SYNONYM_SCORE);
+			assertScoredLikeEnsemble(synonyms, synonymMatches, stringMatcher.findMethodMatches(synonyms));
+		}
+	}
+
+	@Test
+	public void testParameterSynonymMatchesScoreLikeEnsemble() {
+		for (int id = index.getNumMethods(); id < index.size(); id++) {
+			List<String> synonyms = createSynonyms(index.getIndividual(id).getName());
+			ScoredMatches synonymMatches = stringMatcher.findParameterSynonymMatches(synonyms, PERFECT_SYNONYM_SCORE);
+			assertScoredLikeEnsemble(synonyms, synonymMatches, stringMatcher.findParameterMatches(synonyms));
+		}
+	}
+
+	@Test
+	public void testSynonymIsNotNormalizedForScoring() {
+		int id = 0;
+		String synonym = index.getNormalizedName(id).replace(' ', '_').toUpperCase(Locale.ENGLISH);
+		List<String> synonyms = Arrays.asList(synonym);
+		Map<Integer, Double> expected = getScores(stringMatcher.findMethodMatches(synonyms));
+		Map<Integer, Double> actual = getScores(stringMatcher.findMethodSynonymMatches(synonyms, Double.NEGATIVE_INFINITY));
+		// Jaro Winkler compares the raw chars: the uppercase synonym is no (almost) perfect match
+		assertEquals(expected.get(id), actual.get(id));
+		assertFalse(actual.containsKey(id) && actual.get(id) > PERFECT_SYNONYM_SCORE);
+	}
+
+	@Test
+	public void testMethodsWithinDistance() {
+		for (int id = 0; id < index.getNumMethods(); id++) {
+			IMethod method = (IMethod) index.getIndividual(id);
+			String name = index.getNormalizedName(id);
+			assertTrue(name, stringMatcher.getMethodsWithinDistance(name, 0).contains(method));
+			if (name.length() > 1) {
+				String misspelled = name.substring(1);
+				assertTrue(misspelled, stringMatcher.getMethodsWithinDistance(misspelled, 1).contains(method));
+				assertFalse(misspelled, stringMatcher.getMethodsWithinDistance(misspelled + "xyz", 1).contains(method));
+			}
+		}
+		assertTrue(stringMatcher.getMethodsWithinDistance("", 0).isEmpty());
+	}
+
+	// every synonym match is an ensemble match with the same score, and every (almost) perfect ensemble match
+	// near a synonym is found
+	private static void assertScoredLikeEnsemble(List<String> synonyms, ScoredMatches synonymMatches, ScoredMatches ensembleMatches) {
+		Map<Integer, Double> expected = getScores(ensembleMatches);
+		Map<Integer, Double> actual = getScores(synonymMatches);
+		actual.forEach((id, score) -> {
+			assertTrue(synonyms + " : " + index.getIndividual(id).getName(), expected.containsKey(id));
+			assertEquals(expected.get(id), score, 0.0);
+		});
+		expected.forEach((id, score) -> {
+			if (score > PERFECT_SYNONYM_SCORE && isNearSynonym(id, synonyms)) {
+				assertTrue(synonyms + " : " + index.getIndividual(id).getName(), actual.containsKey(id));
+			}
+		});
+	}
+
+	private static boolean isNearSynonym(int id, List<String> synonyms) {
+		for (String synonym : synonyms) {
+			if (Arrays.stream(index.findNearExact(synonym)).anyMatch(found -> found == id)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Map<Integer, Double> getScores(ScoredMatches matches) {
+		Map<Integer, Double> scores = new HashMap<>();
+		for (int i = 0; i < matches.size(); i++) {
+			scores.put(matches.getId(i), matches.getScore(i));
+		}
+		return scores;
+	}
+
+	// raw, wordnet style and misspelled variants of an individual name
+	private static List<String> createSynonyms(String name) {
+		String normalized = OntologyIndex.normalizeName(name);
+		List<String> synonyms = new ArrayList<>();
+		synonyms.add(name);
+		synonyms.add(normalized);
+		synonyms.add(normalized.replace(' ', '_'));
+		synonyms.add(normalized.toUpperCase(Locale.ENGLISH));
+		if (normalized.length() > 3) {
+			synonyms.add(normalized.substring(1));
+			synonyms.add(normalized.substring(0, normalized.length() - 1) + "x");
+		}
+		return synonyms;
+	}
+}
@@ -0,0 +1,70 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TopNSelectorTest {
+
+	@Test
+	public void testTiesRankLaterItemFirst() {
+		TopNSelector selector = new TopNSelector(3);
+		double[] scores = { 0.5, 0.7, 0.7, 0.2, 0.7, 0.5 };
+		for (int i = 0; i < scores.length; i++) {
+			selector.offer(scores[i], i);
+		}
+		assertArrayEquals(new int[] { 4, 2, 1 }, selector.toIndices());
+		assertEquals(scores.length, selector.getOffered());
+	}
+
+	@Test
+	public void testSameOrderAsSortThenReverse() {
+		Random random = new Random(42);
+		for (int run = 0; run < 1000; run++) {
+			int size = random.nextInt(30);
+			int n = random.nextInt(10) + 1;
+			double[] scores = new double[size];
+			TopNSelector selector = new TopNSelector(n);
+			for (int i = 0; i < size; i++) {
+				scores[i] = random.nextInt(5) / 4.0; // many ties
+				selector.offer(scores[i], i);
+			}
+			assertArrayEquals(sortThenReverse(scores, n), selector.toIndices());
+		}
+	}
+
+	@Test
+	public void testFewerItemsThanN() {
+		TopNSelector selector = new TopNSelector(10);
+		selector.offer(0.1, 0);
+		selector.offer(0.9, 1);
+		selector.offer(0.1, 2);
+		assertArrayEquals(new int[] { 1, 2, 0 }, selector.toIndices());
+
+		selector.reset(5);
+		assertArrayEquals(new int[0], selector.toIndices());
+
+		selector.reset(0);
+		selector.offer(1.0, 0);
+		assertArrayEquals(new int[0], selector.toIndices());
+		assertEquals(1, selector.getOffered());
+	}
+
+	// the former selection: sort all items ascending by score (stable), reverse and keep the first n
+	private static int[] sortThenReverse(double[] scores, int n) {
+		List<Integer> indices = new ArrayList<>();
+		for (int i = 0; i < scores.length; i++) {
+			indices.add(i);
+		}
+		indices.sort(Comparator.comparingDouble(i -> scores[i]));
+		Collections.reverse(indices);
+		return indices.stream().limit(n).mapToInt(Integer::intValue).toArray();
+	}
+}
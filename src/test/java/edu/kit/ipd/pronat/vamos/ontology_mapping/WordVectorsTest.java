@@ -0,0 +1,65 @@
+package edu.kit.ipd.pronat.vamos.ontology_mapping;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class WordVectorsTest {
+
+	private static final String[] WORDS = { "Cup", "cup", "take", "Take", "grab", "Müsli" };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testLookup() throws IOException {
+		WordVectors vectors = WordVectors.load(writeVectors());
+		assertEquals(2, vectors.getDimension());
+		assertEquals(WORDS.length, vectors.size());
+
+		// the first word in file order which equals the word or whose lowercased form does
+		assertArrayEquals(vector(0), vectors.getVector("Cup"), 0f);
+		assertArrayEquals(vector(0), vectors.getVector("cup"), 0f);
+		assertArrayEquals(vector(2), vectors.getVector("take"), 0f);
+		assertArrayEquals(vector(3), vectors.getVector("Take"), 0f);
+		// otherwise the first word with the same lowercased form
+		assertArrayEquals(vector(0), vectors.getVector("CUP"), 0f);
+		assertArrayEquals(vector(4), vectors.getVector("Grab"), 0f);
+		assertArrayEquals(vector(5), vectors.getVector("müsli"), 0f);
+		assertNull(vectors.getVector("cups"));
+		assertNull(vectors.getVector(""));
+	}
+
+	private Path writeVectors() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write((WORDS.length + " 2\n").getBytes(StandardCharsets.UTF_8));
+		for (int w = 0; w < WORDS.length; w++) {
+			out.write((WORDS[w] + " ").getBytes(StandardCharsets.UTF_8));
+			ByteBuffer buffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+			for (float v : vector(w)) {
+				buffer.putFloat(v);
+			}
+			out.write(buffer.array());
+			out.write('\n');
+		}
+		Path path = folder.newFile("vectors.bin").toPath();
+		Files.write(path, out.toByteArray());
+		return path;
+	}
+
+	private static float[] vector(int w) {
+		return new float[] { w, -w - 0.5f };
+	}
+}